@@ -0,0 +1,103 @@
+package bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lab.Navigation;
+
+/**
+ * Throughput of distance and time queries from several threads on one shared
+ * Navigation, with the result cache off and on. A few pairs make up most of the
+ * queries (Zipf-like), as the cache expects.
+ *
+ * @author thecr
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CacheBenchmark {
+
+	private static final int PAIRS = 4096;
+
+	@Param({ "TestFile3", "ROAD:100000" })
+	public String map;
+
+	// 0 switches the cache off
+	@Param({ "0", "1024" })
+	public int capacity;
+
+	private Navigation navigation;
+	private String[] from;
+	private String[] to;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		List<String> points;
+		if (map.contains(":")) {
+			String filename = Maps.generate(map, 42).getPath();
+			navigation = Navigation.load(filename);
+			points = Maps.points(filename);
+		} else {
+			navigation = Navigation.load(map);
+			points = Maps.points(map);
+		}
+		navigation.setCacheCapacity(capacity);
+
+		// pair i is picked with a probability of about 1 / i
+		Random random = new Random(42);
+		from = new String[PAIRS];
+		to = new String[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			int pair = (int) Math.pow(PAIRS, random.nextDouble());
+			Random pick = new Random(pair);
+			from[i] = points.get(pick.nextInt(points.size()));
+			to[i] = points.get(pick.nextInt(points.size()));
+		}
+	}
+
+	/**
+	 * Position of the next pair of one thread
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+
+		int pair() {
+			next = (next + 1) & (PAIRS - 1);
+			return next;
+		}
+	}
+
+	@Benchmark
+	public int shortestDistance(Cursor cursor) {
+		int i = cursor.pair();
+		return navigation.findShortestDistance(from[i], to[i]);
+	}
+
+	@Benchmark
+	public int fastestTime(Cursor cursor) {
+		int i = cursor.pair();
+		return navigation.findFastestTime(from[i], to[i]);
+	}
+}
@@ -0,0 +1,95 @@
+package bench;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lab.Dijkstra;
+import lab.MapGenerator;
+import lab.Navigation;
+
+/**
+ * Queries on generated maps (see lab.MapGenerator), for every search algorithm and every kind of
+ * queue of the search (d-ary heaps of different arity and
+ * java.util.PriorityQueue).
+ *
+ * @author thecr
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class LargeGraphBenchmark {
+
+	private static final int PAIRS = 256;
+
+	// topology:points
+	@Param({ "GRID:10000", "GRID:100000", "ROAD:100000", "SCALE_FREE:100000", "RANDOM_GEOMETRIC:100000" })
+	public String map;
+
+	@Param({ "DIJKSTRA", "BIDIRECTIONAL" })
+	public Dijkstra.Algorithm algorithm;
+
+	/*
+	 * D_ARY_HEAP:arity or PRIORITY_QUEUE
+	 */
+	@Param({ "D_ARY_HEAP:2", "D_ARY_HEAP:4", "D_ARY_HEAP:8", "PRIORITY_QUEUE" })
+	public String frontier;
+
+	private Navigation navigation;
+	private String[] from;
+	private String[] to;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		navigation = Navigation.load(Maps.generate(map, 42).getPath());
+		navigation.setAlgorithm(algorithm);
+		navigation.setCacheCapacity(0);
+		String[] queue = frontier.split(":");
+		navigation.setFrontier(Dijkstra.FrontierType.valueOf(queue[0]),
+				queue.length > 1 ? Integer.parseInt(queue[1]) : 2);
+
+		int size = Maps.size(map);
+		Random random = new Random(42);
+		from = new String[PAIRS];
+		to = new String[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			from[i] = MapGenerator.pointName(random.nextInt(size));
+			to[i] = MapGenerator.pointName(random.nextInt(size));
+		}
+	}
+
+	private int pair() {
+		next = (next + 1) & (PAIRS - 1);
+		return next;
+	}
+
+	@Benchmark
+	public int shortestDistance() {
+		int i = pair();
+		return navigation.findShortestDistance(from[i], to[i]);
+	}
+
+	@Benchmark
+	public int fastestTime() {
+		int i = pair();
+		return navigation.findFastestTime(from[i], to[i]);
+	}
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lab.MapRegistry;
+import lab.Navigation;
+
+/**
+ * Loading of maps in the Dot format: the test files and generated maps. The
+ * shared registry is emptied before every load, so the file is really read.
+ *
+ * @author thecr
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadBenchmark {
+
+	/*
+	 * a test file, or topology:points for a generated map (see lab.MapGenerator)
+	 */
+	@Param({ "TestFile1", "TestFile2", "TestFile3", "TestFile4", "TestFile5", "TestFile6", "GRID:100000",
+			"RANDOM_GEOMETRIC:100000", "SCALE_FREE:100000", "ROAD:100000" })
+	public String map;
+
+	private String filename;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if (map.contains(":")) {
+			File file = Maps.generate(map, 42);
+			filename = file.getPath();
+		} else {
+			filename = map;
+		}
+	}
+
+	/*
+	 * a file which cannot be loaded fails the benchmark instead of measuring the
+	 * empty map the constructor falls back to
+	 */
+	@Benchmark
+	public Navigation load() throws IOException {
+		MapRegistry.shared().clear();
+		return Navigation.load(filename);
+	}
+}
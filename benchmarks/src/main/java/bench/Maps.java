@@ -0,0 +1,71 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import lab.MapGenerator;
+
+/**
+ * Maps for the benchmarks: the points of the test files and generated maps of
+ * any size.
+ *
+ * @author thecr
+ *
+ */
+final class Maps {
+
+	private Maps() {
+	}
+
+	/**
+	 * @param filename
+	 *            a map in the Dot format
+	 * @return the names of all points of the map, in the order of the file
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static List<String> points(String filename) throws IOException {
+		List<String> points = new ArrayList<String>();
+		for (String line : Files.readAllLines(Paths.get(filename), StandardCharsets.UTF_8)) {
+			// A [label="A,5"];
+			if (!line.contains("->") && line.contains("[label=")) {
+				points.add(line.substring(0, line.indexOf('[')).trim());
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * Writes a generated map (see lab.MapGenerator) to a temporary file
+	 *
+	 * @param spec
+	 *            topology and number of points, e.g. "ROAD:100000"
+	 * @param seed
+	 *            seed of the random numbers, the same seed gives the same map
+	 * @return the file (deleted when the JVM exits)
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	static File generate(String spec, long seed) throws IOException {
+		String[] parts = spec.split(":");
+		File file = File.createTempFile(parts[0] + parts[1] + "_", ".dot");
+		file.deleteOnExit();
+		new MapGenerator(MapGenerator.Topology.valueOf(parts[0]), Integer.parseInt(parts[1]), seed)
+				.write(file.toPath());
+		return file;
+	}
+
+	/**
+	 * @param spec
+	 *            topology and number of points, e.g. "ROAD:100000"
+	 * @return the number of points
+	 */
+	static int size(String spec) {
+		return Integer.parseInt(spec.substring(spec.indexOf(':') + 1));
+	}
+}
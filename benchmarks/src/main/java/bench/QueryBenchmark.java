@@ -0,0 +1,104 @@
+package bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import lab.Dijkstra;
+import lab.Navigation;
+
+/**
+ * Distance, time and route queries on the test files. The queries go through
+ * random pairs of points of the map; the result cache is switched off, so
+ * every query is searched.
+ *
+ * @author thecr
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+	private static final int PAIRS = 1024;
+
+	@Param({ "TestFile1", "TestFile2", "TestFile3", "TestFile4", "TestFile5", "TestFile6" })
+	public String map;
+
+	@Param({ "DIJKSTRA", "BIDIRECTIONAL" })
+	public Dijkstra.Algorithm algorithm;
+
+	private Navigation navigation;
+	private String[] from;
+	private String[] to;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		navigation = Navigation.load(map);
+		navigation.setAlgorithm(algorithm);
+		navigation.setCacheCapacity(0);
+
+		List<String> points = new ArrayList<String>(Maps.points(map));
+		Random random = new Random(42);
+		from = new String[PAIRS];
+		to = new String[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			from[i] = points.get(random.nextInt(points.size()));
+			to[i] = points.get(random.nextInt(points.size()));
+		}
+	}
+
+	private int pair() {
+		next = (next + 1) & (PAIRS - 1);
+		return next;
+	}
+
+	@Benchmark
+	public int shortestDistance() {
+		int i = pair();
+		return navigation.findShortestDistance(from[i], to[i]);
+	}
+
+	@Benchmark
+	public int fastestTime() {
+		int i = pair();
+		return navigation.findFastestTime(from[i], to[i]);
+	}
+
+	@Benchmark
+	public ArrayList<String> shortestRoute() {
+		int i = pair();
+		return navigation.findShortestRoute(from[i], to[i]);
+	}
+
+	@Benchmark
+	public List<String> shortestRouteView() {
+		int i = pair();
+		return navigation.findShortestRouteView(from[i], to[i]);
+	}
+
+	@Benchmark
+	public ArrayList<String> fastestRoute() {
+		int i = pair();
+		return navigation.findFastestRoute(from[i], to[i]);
+	}
+}
@@ -0,0 +1,41 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Dijkstra;
+import lab.Navigation;
+
+/**
+ * Checks that the bidirectional search answers exactly like the search from the
+ * source alone, for the distances as well as for the times (where the waiting
+ * times of the nodes are added).
+ */
+public class BidirectionalTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	@Test
+	public void TestFile3_Bidirectional_Equals_Dijkstra() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dijkstra = Fixtures.dijkstra("TestFile3");
+			Navigation bidirectional = new Navigation("TestFile3");
+			bidirectional.setAlgorithm(Dijkstra.Algorithm.BIDIRECTIONAL);
+			Fixtures.assertSameAnswers(dijkstra, bidirectional);
+		});
+	}
+
+	@Test
+	public void TestFile1_Bidirectional_No_Path() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			lab.setAlgorithm(Dijkstra.Algorithm.BIDIRECTIONAL);
+			assertEquals(Navigation.NO_PATH, lab.findShortestDistance("B", "A"), "From B to A: ");
+			assertEquals(Navigation.NO_PATH, lab.findFastestTime("B", "A"), "From B to A: ");
+		});
+	}
+}
@@ -0,0 +1,173 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Dijkstra;
+import lab.Navigation;
+import lab.RouteCache;
+
+/**
+ * Checks the cache of the distance and time results: cached answers are the
+ * same as searched ones, popular queries are not pushed out by rare ones and
+ * results of an older graph are never returned.
+ */
+public class CacheTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	@Test
+	public void TestFile3_Cached_Equals_Searched() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation searched = new Navigation("TestFile3");
+			searched.setCacheCapacity(0);
+			Navigation lab = new Navigation("TestFile3");
+			lab.setCacheCapacity(16);
+			// every pair once, in between always the same popular pair
+			for (String from : Fixtures.CITIES) {
+				for (String to : Fixtures.CITIES) {
+					assertEquals(searched.findShortestDistance(from, to), lab.findShortestDistance(from, to),
+							"Distance from " + from + " to " + to + ": ");
+					assertEquals(searched.findFastestTime(from, to), lab.findFastestTime(from, to),
+							"Time from " + from + " to " + to + ": ");
+					assertEquals(searched.findShortestDistance("Siegen", "Munich"),
+							lab.findShortestDistance("Siegen", "Munich"));
+				}
+			}
+			assertTrue(lab.getCache().getHits() >= Fixtures.CITIES.length * Fixtures.CITIES.length - 1);
+			assertTrue(lab.getCache().getSize() <= 16);
+			assertEquals(0, searched.getCache().getHits());
+		});
+	}
+
+	@Test
+	public void TestFile1_Repeated_Query_Hits() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			lab.setCacheCapacity(8);
+			int first = lab.findShortestDistance("A", "D");
+			assertEquals(first, lab.findShortestDistance("A", "D"));
+			assertEquals(1, lab.getCache().getHits());
+			assertEquals(1, lab.getCache().getMisses());
+		});
+	}
+
+	@Test
+	public void Rare_Queries_Do_Not_Push_Out_Popular_Ones() {
+		assertTimeoutPreemptively(timeout, () -> {
+			RouteCache cache = new RouteCache(2);
+			for (int i = 0; i < 5; i++) {
+				cache.get(RouteCache.Metric.DISTANCE, "A", "B", 0);
+				cache.get(RouteCache.Metric.DISTANCE, "A", "C", 0);
+			}
+			cache.put(RouteCache.Metric.DISTANCE, "A", "B", 0, 7);
+			cache.put(RouteCache.Metric.DISTANCE, "A", "C", 0, 9);
+
+			// asked for once: not admitted
+			assertEquals(RouteCache.MISS, cache.get(RouteCache.Metric.DISTANCE, "X", "Y", 0));
+			cache.put(RouteCache.Metric.DISTANCE, "X", "Y", 0, 1);
+			assertEquals(1, cache.getRejections());
+			assertEquals(7, cache.get(RouteCache.Metric.DISTANCE, "A", "B", 0));
+			assertEquals(9, cache.get(RouteCache.Metric.DISTANCE, "A", "C", 0));
+
+			// asked for more often than the victim: admitted
+			for (int i = 0; i < 10; i++) {
+				cache.get(RouteCache.Metric.TIME, "X", "Y", 0);
+			}
+			cache.put(RouteCache.Metric.TIME, "X", "Y", 0, 3);
+			assertEquals(3, cache.get(RouteCache.Metric.TIME, "X", "Y", 0));
+			assertEquals(2, cache.getSize());
+		});
+	}
+
+	@Test
+	public void Changed_Weight_Invalidates_Results() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Dijkstra<String> graph = new Dijkstra<String>();
+			graph.addEdge("A", "B", 5);
+			RouteCache cache = new RouteCache(4);
+			long generation = graph.getGeneration();
+			cache.put(RouteCache.Metric.DISTANCE, "A", "B", generation, 5);
+			assertEquals(5, cache.get(RouteCache.Metric.DISTANCE, "A", "B", graph.getGeneration()));
+
+			graph.addEdge("A", "B", 3);
+			assertTrue(graph.getGeneration() > generation);
+			assertEquals(RouteCache.MISS, cache.get(RouteCache.Metric.DISTANCE, "A", "B", graph.getGeneration()));
+			assertEquals(0, cache.getSize());
+		});
+	}
+
+	@Test
+	public void TestFile3_Concurrent_Queries_Share_The_Cache() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation searched = new Navigation("TestFile3");
+			searched.setCacheCapacity(0);
+			Navigation lab = new Navigation("TestFile3");
+			assertEquals(Navigation.DEFAULT_CACHE_CAPACITY, lab.getCache().getCapacity());
+
+			ExecutorService pool = Executors.newFixedThreadPool(4);
+			try {
+				List<Future<int[]>> answers = new ArrayList<Future<int[]>>();
+				for (int t = 0; t < 4; t++) {
+					final int offset = t;
+					answers.add(pool.submit(() -> {
+						// wrong answers and queries which went through the cache
+						int[] counts = new int[2];
+						// the first five cities are the popular ones
+						for (int k = 0; k < 2000; k++) {
+							String from = Fixtures.CITIES[(k + offset) % 5];
+							String to = Fixtures.CITIES[(k * 7 + offset) % Fixtures.CITIES.length];
+							if (lab.findShortestDistance(from, to) != searched.findShortestDistance(from, to))
+								counts[0]++;
+							// from A to A is answered without the cache
+							if (!from.equals(to))
+								counts[1]++;
+						}
+						return counts;
+					}));
+				}
+				int queries = 0;
+				for (Future<int[]> answer : answers) {
+					assertEquals(0, answer.get()[0]);
+					queries += answer.get()[1];
+				}
+				assertEquals(queries, lab.getCache().getHits() + lab.getCache().getMisses());
+			} finally {
+				pool.shutdown();
+			}
+			assertTrue(lab.getCache().getHits() > 0);
+		});
+	}
+
+	@Test
+	public void Striped_Cache_Keeps_Its_Capacity() {
+		assertTimeoutPreemptively(timeout, () -> {
+			RouteCache cache = new RouteCache(1024);
+			for (int i = 0; i < 5000; i++) {
+				String to = "B" + i;
+				for (int k = 0; k < 3; k++) {
+					cache.get(RouteCache.Metric.DISTANCE, "A", to, 0);
+				}
+				cache.put(RouteCache.Metric.DISTANCE, "A", to, 0, i);
+			}
+			assertTrue(cache.getSize() <= 1024, "Size " + cache.getSize());
+			assertTrue(cache.getSize() > 512, "Size " + cache.getSize());
+			// asked for more often than any other: admitted in whatever stripe it is
+			for (int k = 0; k < 10; k++) {
+				cache.get(RouteCache.Metric.TIME, "A", "B", 0);
+			}
+			cache.put(RouteCache.Metric.TIME, "A", "B", 0, 7);
+			assertEquals(7, cache.get(RouteCache.Metric.TIME, "A", "B", 0));
+		});
+	}
+}
@@ -0,0 +1,125 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Dijkstra;
+import lab.Navigation;
+
+/**
+ * Queries one shared Navigation from several threads at the same time and
+ * compares the answers with the ones of a single thread.
+ */
+public class ConcurrentQueryTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	private static final String[] CITIES = { "Siegen", "FrankfurtanderOder", "Goeteborg", "Dresden", "Bremen",
+			"Duesseldorf", "Aachen", "Mainz", "FrankfurtamMain", "Mannheim", "Essen", "Passau", "Heidelberg",
+			"Saarbruecken", "Bochum", "Schwerin", "Osnabrueck", "Potsdam", "Hanover", "Berlin", "Hamburg",
+			"Braunschweig", "Goettingen", "Bayreuth", "Chemnitz", "Oldenburg", "Erfurt", "Leipzig", "Darmstadt",
+			"Giessen", "Regensburg", "Bonn", "Kiel", "Bamberg", "Duisburg", "Munich", "Cologne", "Augsburg",
+			"Kassel" };
+
+	@Test
+	public void TestFile3_Concurrent_Distance_And_Time() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+
+			// the answers of a single thread
+			int[] expected = new int[CITIES.length * CITIES.length * 2];
+			for (int i = 0; i < CITIES.length; i++) {
+				for (int j = 0; j < CITIES.length; j++) {
+					int at = (i * CITIES.length + j) * 2;
+					expected[at] = lab.findShortestDistance(CITIES[i], CITIES[j]);
+					expected[at + 1] = lab.findFastestTime(CITIES[i], CITIES[j]);
+				}
+			}
+
+			ExecutorService pool = Executors.newFixedThreadPool(8);
+			try {
+				List<Future<int[]>> answers = new ArrayList<Future<int[]>>();
+				for (int t = 0; t < 8; t++) {
+					final int offset = t;
+					answers.add(pool.submit(() -> {
+						int[] found = new int[expected.length];
+						// every thread walks the pairs in a different order
+						for (int k = 0; k < CITIES.length; k++) {
+							int i = (k + offset * 5) % CITIES.length;
+							for (int j = 0; j < CITIES.length; j++) {
+								int at = (i * CITIES.length + j) * 2;
+								found[at] = lab.findShortestDistance(CITIES[i], CITIES[j]);
+								found[at + 1] = lab.findFastestTime(CITIES[i], CITIES[j]);
+							}
+						}
+						return found;
+					}));
+				}
+				for (Future<int[]> answer : answers) {
+					int[] found = answer.get();
+					for (int at = 0; at < expected.length; at++) {
+						assertEquals(expected[at], found[at], "Query " + at + ": ");
+					}
+				}
+			} finally {
+				pool.shutdown();
+			}
+		});
+	}
+
+	@Test
+	public void TestFile1_Repeated_Route_Is_Not_Accumulated() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			ArrayList<String> first = lab.findShortestRoute("A", "H");
+			ArrayList<String> second = lab.findShortestRoute("A", "H");
+			assertEquals(first, second, "Route A to H: ");
+			assertTrue(AllTests.testNoRoute(lab.findShortestRoute("H", "A"), "TestFile1", "H", "A",
+					AllTests.OutputFormat.RouteDistance), "Route H to A: ");
+		});
+	}
+
+	/*
+	 * the names of the nodes added so far are looked up while more are added
+	 */
+	@Test
+	public void Lookups_While_Adding_Nodes() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Dijkstra<String> graph = new Dijkstra<String>();
+			AtomicInteger added = new AtomicInteger();
+			AtomicReference<String> wrong = new AtomicReference<String>();
+			Thread reader = new Thread(() -> {
+				int k = 0;
+				while (added.get() < 20000 && wrong.get() == null) {
+					int count = added.get();
+					if (count == 0)
+						continue;
+					String name = "N" + (k++ % count);
+					int id = graph.findNodeId(name);
+					if (id < 0 || !name.equals(graph.getName(id)) || graph.findNode(name) == null)
+						wrong.set(name + ": " + id);
+				}
+			});
+			reader.start();
+			for (int i = 0; i < 20000; i++) {
+				graph.addEdge("N" + i, "N" + (i + 1) % 20000, 1);
+				added.set(i + 1);
+			}
+			reader.join();
+			assertEquals(null, wrong.get());
+			assertEquals(20000, graph.size());
+		});
+	}
+}
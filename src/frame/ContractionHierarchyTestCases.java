@@ -0,0 +1,57 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Dijkstra;
+import lab.Navigation;
+
+/**
+ * Checks that the search on the contraction hierarchies answers exactly like the
+ * search from the source alone and that its routes are unpacked to the
+ * connections of the map.
+ */
+public class ContractionHierarchyTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	private static Navigation contracted(String filename) {
+		Navigation lab = new Navigation(filename);
+		lab.prepareHierarchies();
+		lab.setAlgorithm(Dijkstra.Algorithm.CONTRACTION_HIERARCHY);
+		return lab;
+	}
+
+	@Test
+	public void TestFile3_Hierarchy_Equals_Dijkstra() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dijkstra = Fixtures.dijkstra("TestFile3");
+			Navigation lab = contracted("TestFile3");
+			Fixtures.assertSameAnswers(dijkstra, lab);
+		});
+	}
+
+	@Test
+	public void TestFile1_Hierarchy_Routes() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = contracted("TestFile1");
+			ArrayList<String> route = new ArrayList<String>();
+			route.add("A\\s*->\\s*C");
+			route.add("C\\s*->\\s*D");
+			route.add("D\\s*->\\s*F");
+			route.add("F\\s*->\\s*G");
+			route.add("G\\s*->\\s*H");
+			assertTrue(AllTests.testRoute(true, lab.findShortestRoute("A", "H"), route, "TestFile1", "A", "H",
+					AllTests.OutputFormat.RouteDistance), "Route not correct");
+			assertTrue(AllTests.testRoute(true, lab.findFastestRoute("A", "H"), route, "TestFile1", "A", "H",
+					AllTests.OutputFormat.RouteTime), "Route not correct");
+			assertEquals(Navigation.NO_PATH, lab.findShortestDistance("B", "A"), "From B to A: ");
+		});
+	}
+}
@@ -0,0 +1,67 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import lab.Dijkstra;
+import lab.Navigation;
+
+/**
+ * The cities of TestFile3 and the checks the test cases of the search
+ * algorithms share: every algorithm has to answer all pairs of cities exactly
+ * like the plain Dijkstra search.
+ */
+final class Fixtures {
+
+	static final String[] CITIES = { "Siegen", "Goeteborg", "Dresden", "Bremen", "Aachen", "Mainz", "Passau",
+			"Schwerin", "Berlin", "Hamburg", "Kiel", "Bamberg", "Duisburg", "Munich", "Augsburg" };
+
+	private Fixtures() {
+	}
+
+	/**
+	 * @param filename
+	 *            name of the file containing the map
+	 * @return a Navigation searching from the source alone, the answers all
+	 *         others are compared with
+	 */
+	static Navigation dijkstra(String filename) {
+		Navigation dijkstra = new Navigation(filename);
+		dijkstra.setAlgorithm(Dijkstra.Algorithm.DIJKSTRA);
+		return dijkstra;
+	}
+
+	/**
+	 * Compares the distances and times between all pairs of CITIES
+	 *
+	 * @param expected
+	 *            the Navigation giving the right answers
+	 * @param lab
+	 *            the Navigation which is checked
+	 */
+	static void assertSameAnswers(Navigation expected, Navigation lab) {
+		for (String from : CITIES) {
+			for (String to : CITIES) {
+				assertEquals(expected.findShortestDistance(from, to), lab.findShortestDistance(from, to),
+						"Distance from " + from + " to " + to + ": ");
+				assertEquals(expected.findFastestTime(from, to), lab.findFastestTime(from, to),
+						"Time from " + from + " to " + to + ": ");
+			}
+		}
+	}
+
+	/**
+	 * @param map
+	 *            the lines of a drawn map
+	 * @return the number of lines marked in bold
+	 */
+	static int boldLines(List<String> map) {
+		int count = 0;
+		for (String line : map) {
+			if (line.contains("bold"))
+				count++;
+		}
+		return count;
+	}
+}
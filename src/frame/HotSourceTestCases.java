@@ -0,0 +1,138 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Dijkstra;
+import lab.Navigation;
+import lab.RouteResult;
+
+/**
+ * Checks the repaired shortest path trees of hot sources against complete
+ * searches, before and after weights got cheaper or more expensive.
+ */
+public class HotSourceTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	/**
+	 * A -> B -> C -> D and a detour A -> E -> D, waiting 2 minutes in B
+	 */
+	private static Dijkstra<String> graph() {
+		Dijkstra<String> graph = new Dijkstra<String>();
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("B", "C", 1);
+		graph.addEdge("C", "D", 1);
+		graph.addEdge("A", "E", 4);
+		graph.addEdge("E", "D", 4);
+		graph.setWaitingTime("B", 2);
+		return graph;
+	}
+
+	private static void assertSameRoutes(Dijkstra<String> expected, Dijkstra<String> lab) {
+		for (int i = 0; i < expected.size(); i++) {
+			String to = expected.getName(i);
+			RouteResult length = expected.getRouteLength("A", to);
+			RouteResult time = expected.getRouteTime("A", to);
+			assertEquals(length.getRoundedValue(), lab.getRouteLength("A", to).getRoundedValue(), "Length to " + to);
+			assertEquals(time.getRoundedValue(), lab.getRouteTime("A", to).getRoundedValue(), "Time to " + to);
+		}
+	}
+
+	@Test
+	public void Repaired_Tree_Equals_Search() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Dijkstra<String> expected = graph();
+			Dijkstra<String> lab = graph();
+			assertTrue(lab.addHotLengthSource("A"));
+			assertTrue(lab.addHotTimeSource("A"));
+			assertFalse(lab.addHotLengthSource("X"));
+			assertSameRoutes(expected, lab);
+
+			// more expensive: D (the subtree below C -> D) takes the detour
+			expected.addEdge("C", "D", 20);
+			lab.addEdge("C", "D", 20);
+			assertSameRoutes(expected, lab);
+			assertEquals(8, lab.getRouteLength("A", "D").getRoundedValue());
+
+			// cheaper again, a new point and a longer wait
+			expected.addEdge("C", "D", 1);
+			lab.addEdge("C", "D", 1);
+			expected.addEdge("D", "F", 3);
+			lab.addEdge("D", "F", 3);
+			expected.setWaitingTime("B", 9);
+			lab.setWaitingTime("B", 9);
+			assertSameRoutes(expected, lab);
+			assertEquals(6, lab.getRouteLength("A", "F").getRoundedValue());
+			// 3 minutes driving and 9 waiting in B is slower than the detour now
+			assertEquals(8, lab.getRouteTime("A", "D").getRoundedValue());
+		});
+	}
+
+	@Test
+	public void TestFile3_HotSource_Equals_Dijkstra() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dijkstra = Fixtures.dijkstra("TestFile3");
+			dijkstra.setCacheCapacity(0);
+			Navigation lab = new Navigation("TestFile3");
+			lab.setCacheCapacity(0);
+			assertTrue(lab.addHotSource("Siegen"));
+			for (String to : Fixtures.CITIES) {
+				assertEquals(dijkstra.findShortestDistance("Siegen", to), lab.findShortestDistance("Siegen", to),
+						"Distance to " + to + ": ");
+				assertEquals(dijkstra.findFastestTime("Siegen", to), lab.findFastestTime("Siegen", to),
+						"Time to " + to + ": ");
+			}
+			lab.removeHotSource("Siegen");
+		});
+	}
+
+	/*
+	 * A -> B -> P0 -> P1 -> ... while A -> B gets longer and longer: a query
+	 * which read the generation first must not get an answer older than that
+	 * generation (a cache would keep it as the answer of the generation)
+	 */
+	@Test
+	public void Hot_Source_Query_While_Adding_Edges() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Dijkstra<String> lab = new Dijkstra<String>();
+			lab.addEdge("A", "B", 1);
+			lab.addEdge("B", "P0", 1);
+			for (int i = 1; i < 2000; i++) {
+				lab.addEdge("P" + (i - 1), "P" + i, 1);
+			}
+			assertTrue(lab.addHotLengthSource("A"));
+			assertTrue(lab.addHotTimeSource("A"));
+			// every change of A -> B increases the generation by one
+			long start = lab.getGeneration();
+
+			AtomicBoolean done = new AtomicBoolean();
+			AtomicReference<String> stale = new AtomicReference<String>();
+			Thread reader = new Thread(() -> {
+				while (!done.get() && stale.get() == null) {
+					long generation = lab.getGeneration();
+					int length = (int) (generation - start) + 1;
+					int time = lab.getRouteTime("A", "P1999").getRoundedValue();
+					if (time < length + 2000)
+						stale.set("Generation " + generation + ": " + time);
+				}
+			});
+			reader.start();
+			for (int i = 2; i <= 300 && stale.get() == null; i++) {
+				lab.addEdge("A", "B", i);
+			}
+			done.set(true);
+			reader.join();
+			assertEquals(null, stale.get());
+			assertEquals(300 + 2000, lab.getRouteTime("A", "P1999").getRoundedValue());
+		});
+	}
+}
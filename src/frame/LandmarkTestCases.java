@@ -0,0 +1,55 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.File;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Dijkstra;
+import lab.Navigation;
+
+/**
+ * Checks that the A* search with landmark bounds (ALT) answers exactly like the
+ * search from the source alone and that the landmark tables survive a snapshot
+ * file.
+ */
+public class LandmarkTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	@Test
+	public void TestFile3_ALT_Equals_Dijkstra() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dijkstra = Fixtures.dijkstra("TestFile3");
+
+			for (Dijkstra.LandmarkSelection selection : Dijkstra.LandmarkSelection.values()) {
+				Navigation lab = new Navigation("TestFile3");
+				lab.prepareLandmarks(4, selection);
+				lab.setAlgorithm(Dijkstra.Algorithm.ALT);
+				assertEquals(4, lab.getLandmarkCount(), "Landmarks: ");
+				Fixtures.assertSameAnswers(dijkstra, lab);
+			}
+		});
+	}
+
+	@Test
+	public void TestFile3_Landmarks_In_Snapshot() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dijkstra = Fixtures.dijkstra("TestFile3");
+
+			Navigation dot = new Navigation("TestFile3");
+			dot.prepareLandmarks(3, Dijkstra.LandmarkSelection.AVOID);
+			File snapshot = File.createTempFile("TestFile3", ".snap");
+			snapshot.deleteOnExit();
+			dot.saveSnapshot(snapshot.getPath());
+
+			Navigation lab = new Navigation(snapshot.getPath());
+			lab.setAlgorithm(Dijkstra.Algorithm.ALT);
+			assertEquals(3, lab.getLandmarkCount(), "Landmarks: ");
+			Fixtures.assertSameAnswers(dijkstra, lab);
+		});
+	}
+}
@@ -0,0 +1,93 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import lab.MapGenerator;
+import lab.Navigation;
+
+/**
+ * Generated maps: the lines have the format of the test files, the same seed
+ * gives the same map and the maps can be loaded and searched.
+ */
+public class MapGeneratorTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	private static final Pattern EDGE = Pattern.compile("P\\d+ -> P\\d+ \\[label=\"[1-9]\\d*,[1-9]\\d*\"\\];");
+	private static final Pattern NODE = Pattern.compile("(P\\d+) \\[label=\"\\1,\\d+\"\\];");
+
+	private static String generate(MapGenerator.Topology topology, int nodes, long seed) throws Exception {
+		StringWriter out = new StringWriter();
+		new MapGenerator(topology, nodes, seed).writeTo(out);
+		return out.toString();
+	}
+
+	@Test
+	public void Format_And_Size() {
+		assertTimeoutPreemptively(timeout, () -> {
+			for (MapGenerator.Topology topology : MapGenerator.Topology.values()) {
+				String[] lines = generate(topology, 1000, 7).split("\n");
+				assertEquals("Digraph {", lines[0], topology.toString());
+				assertEquals("}", lines[lines.length - 1], topology.toString());
+				int edges = 0;
+				int nodes = 0;
+				for (int i = 1; i < lines.length - 1; i++) {
+					if (EDGE.matcher(lines[i]).matches()) {
+						// the edges come before the points
+						assertEquals(0, nodes, lines[i]);
+						edges++;
+					} else {
+						assertTrue(NODE.matcher(lines[i]).matches(), lines[i]);
+						assertEquals(MapGenerator.pointName(nodes) + " [", lines[i].substring(0, lines[i].indexOf('[') + 1));
+						nodes++;
+					}
+				}
+				assertEquals(1000, nodes, topology.toString());
+				// every connection in both directions
+				assertEquals(0, edges % 2, topology.toString());
+				assertTrue(edges >= 2 * 999 || topology == MapGenerator.Topology.RANDOM_GEOMETRIC, topology.toString());
+			}
+		});
+	}
+
+	@Test
+	public void Same_Seed_Same_Map() {
+		assertTimeoutPreemptively(timeout, () -> {
+			for (MapGenerator.Topology topology : MapGenerator.Topology.values()) {
+				assertEquals(generate(topology, 500, 1), generate(topology, 500, 1), topology.toString());
+				assertNotEquals(generate(topology, 500, 1), generate(topology, 500, 2), topology.toString());
+			}
+		});
+	}
+
+	@Test
+	public void Generated_Maps_Can_Be_Searched() {
+		assertTimeoutPreemptively(timeout, () -> {
+			for (MapGenerator.Topology topology : new MapGenerator.Topology[] { MapGenerator.Topology.GRID,
+					MapGenerator.Topology.SCALE_FREE, MapGenerator.Topology.ROAD }) {
+				File file = File.createTempFile(topology.toString(), ".dot");
+				file.deleteOnExit();
+				new MapGenerator(topology, 5000, 3).write(file.toPath());
+				Navigation lab = new Navigation(file.getPath());
+				// these maps are connected
+				String from = MapGenerator.pointName(0);
+				String to = MapGenerator.pointName(4999);
+				assertTrue(lab.findShortestDistance(from, to) > 0, topology.toString());
+				assertTrue(lab.findFastestTime(from, to) > 0, topology.toString());
+				assertEquals(lab.findShortestDistance(from, to), lab.findShortestDistance(to, from), topology.toString());
+				Files.delete(file.toPath());
+			}
+		});
+	}
+}
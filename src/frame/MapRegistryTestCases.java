@@ -0,0 +1,162 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Dijkstra;
+import lab.MapRegistry;
+import lab.Navigation;
+
+/**
+ * Checks that the shared MapRegistry loads every map file once, notices changed
+ * files and stays within its budget.
+ */
+public class MapRegistryTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	private static File copyOf(String filename) throws Exception {
+		File copy = File.createTempFile("registry", ".dot");
+		copy.deleteOnExit();
+		Files.copy(new File(filename).toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		return copy;
+	}
+
+	@Test
+	public void TestFile1_Loaded_Once_For_Concurrent_Requests() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File map = copyOf("TestFile1");
+			MapRegistry registry = MapRegistry.shared();
+			long loads = registry.getLoadCount();
+
+			ExecutorService pool = Executors.newFixedThreadPool(8);
+			try {
+				List<Future<Integer>> answers = new ArrayList<Future<Integer>>();
+				for (int t = 0; t < 8; t++) {
+					answers.add(pool.submit(() -> new Navigation(map.getPath()).findShortestDistance("A", "H")));
+				}
+				for (Future<Integer> answer : answers) {
+					assertEquals(29, (int) answer.get(), "From A to H: ");
+				}
+			} finally {
+				pool.shutdown();
+			}
+			assertEquals(loads + 1, registry.getLoadCount(), "Number of loads: ");
+			assertTrue(registry.isCached(map.getPath()), "Map not cached");
+		});
+	}
+
+	@Test
+	public void TestFile1_Changed_File_Is_Loaded_Again() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File map = copyOf("TestFile1");
+			assertEquals(8, new Navigation(map.getPath()).findShortestDistance("A", "C"), "From A to C: ");
+
+			// makes the direct connection from A to C longer (this also changes the size of the file)
+			String changed = new String(Files.readAllBytes(map.toPath()), StandardCharsets.UTF_8)
+					.replace("A -> C [label=\"8,80\"]", "A -> C [label=\"80,80\"]");
+			Files.write(map.toPath(), changed.getBytes(StandardCharsets.UTF_8));
+
+			assertEquals(80, new Navigation(map.getPath()).findShortestDistance("A", "C"), "From A to C: ");
+		});
+	}
+
+	@Test
+	public void TestFile3_Least_Recently_Used_Evicted() {
+		assertTimeoutPreemptively(timeout, () -> {
+			MapRegistry registry = MapRegistry.shared();
+			long budget = registry.getBudget();
+			try {
+				File first = copyOf("TestFile3");
+				File second = copyOf("TestFile3");
+				new Navigation(first.getPath());
+				assertTrue(registry.isCached(first.getPath()), "First map not cached");
+
+				// no room for more than the map loaded last
+				registry.setBudget(1);
+				new Navigation(second.getPath());
+				assertFalse(registry.isCached(first.getPath()), "First map not evicted");
+				assertTrue(registry.isCached(second.getPath()), "Second map not cached");
+			} finally {
+				registry.setBudget(budget);
+			}
+		});
+	}
+
+	@Test
+	public void TestFile3_Snapshot_Counts_For_The_Budget() {
+		assertTimeoutPreemptively(timeout, () -> {
+			MapRegistry registry = MapRegistry.shared();
+			File snapshot = File.createTempFile("registry", ".snap");
+			snapshot.deleteOnExit();
+			new Navigation(copyOf("TestFile3").getPath()).saveSnapshot(snapshot.getPath());
+
+			long used = registry.getUsedBytes();
+			new Navigation(snapshot.getPath());
+			assertTrue(registry.isCached(snapshot.getPath()), "Snapshot not cached");
+			// lines and reversed graphs are built on the heap once the map is used
+			long bytes = registry.getUsedBytes() - used;
+			long lines = Files.readAllLines(new File("TestFile3").toPath(), StandardCharsets.UTF_8).size();
+			assertTrue(bytes > 100 * lines, "Estimated " + bytes + " bytes for " + lines + " lines");
+		});
+	}
+
+	@Test
+	public void Failed_Load_Is_Reported() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File missing = new File(copyOf("TestFile1").getPath() + ".missing");
+			assertThrows(IOException.class, () -> Navigation.load(missing.getPath()));
+			// the constructor falls back to an empty map
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND,
+					new Navigation(missing.getPath()).findShortestDistance("A", "B"));
+			assertEquals(new Navigation("TestFile1").findShortestDistance("A", "H"),
+					Navigation.load("TestFile1").findShortestDistance("A", "H"));
+		});
+	}
+
+	@Test
+	public void TestFile3_Prepared_Tables_Stay_In_Their_Navigation() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File map = copyOf("TestFile3");
+			Navigation before = new Navigation(map.getPath());
+			Navigation lab = new Navigation(map.getPath());
+			lab.setFrontier(Dijkstra.FrontierType.D_ARY_HEAP, 2);
+			lab.prepareLandmarks(4, Dijkstra.LandmarkSelection.FARTHEST);
+			lab.prepareHierarchies();
+			assertTrue(lab.addHotSource("Siegen"));
+			assertEquals(4, lab.getLandmarkCount());
+			Navigation after = new Navigation(map.getPath());
+
+			// the map of the file is still loaded once, but without the tables
+			assertEquals(0, before.getLandmarkCount());
+			assertEquals(0, after.getLandmarkCount());
+			assertTrue(MapRegistry.shared().isCached(map.getPath()));
+			for (Dijkstra.Algorithm algorithm : new Dijkstra.Algorithm[] { Dijkstra.Algorithm.ALT,
+					Dijkstra.Algorithm.CONTRACTION_HIERARCHY }) {
+				lab.setAlgorithm(algorithm);
+				Fixtures.assertSameAnswers(after, lab);
+			}
+			lab.removeHotSource("Siegen");
+			// nothing to remove from a map which is still shared
+			after.removeHotSource("Siegen");
+			Fixtures.assertSameAnswers(before, after);
+		});
+	}
+}
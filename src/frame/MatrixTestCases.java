@@ -0,0 +1,71 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lab.DistanceMatrix;
+import lab.Navigation;
+
+/**
+ * Computes distance and time matrices in parallel and compares them with the
+ * answers of the single queries.
+ */
+public class MatrixTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	private static final List<String> SOURCES = Arrays.asList("Siegen", "Goeteborg", "Dresden", "Bremen", "Aachen",
+			"Mainz", "Passau", "Schwerin", "Berlin", "Hamburg", "Atlantis");
+	private static final List<String> DESTINATIONS = Arrays.asList("Kiel", "Bamberg", "Duisburg", "Munich",
+			"Augsburg", "Atlantis", "Siegen");
+
+	@Test
+	public void TestFile3_Distance_And_Time_Matrix() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+			int[] distances = lab.findShortestDistanceMatrix(SOURCES, DESTINATIONS).toRoundedArray();
+			int[] times = lab.findFastestTimeMatrix(SOURCES, DESTINATIONS).toRoundedArray();
+
+			for (int i = 0; i < SOURCES.size(); i++) {
+				for (int j = 0; j < DESTINATIONS.size(); j++) {
+					String from = SOURCES.get(i);
+					String to = DESTINATIONS.get(j);
+					if (from.equals(to))
+						continue;
+					assertEquals(lab.findShortestDistance(from, to), distances[i * DESTINATIONS.size() + j],
+							"Distance from " + from + " to " + to + ": ");
+					assertEquals(lab.findFastestTime(from, to), times[i * DESTINATIONS.size() + j],
+							"Time from " + from + " to " + to + ": ");
+				}
+			}
+		});
+	}
+
+	@Test
+	public void TestFile3_Matrix_File() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+			DistanceMatrix matrix = lab.findFastestTimeMatrix(SOURCES, DESTINATIONS);
+			File file = File.createTempFile("TestFile3", ".matrix");
+			file.deleteOnExit();
+			lab.writeFastestTimeMatrix(SOURCES, DESTINATIONS, file.getPath());
+
+			ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(SOURCES.size(), bytes.getInt(12), "Rows: ");
+			assertEquals(DESTINATIONS.size(), bytes.getInt(16), "Columns: ");
+			for (int i = 0; i < matrix.values().length; i++) {
+				assertEquals(matrix.values()[i], bytes.getDouble(32 + 8 * i), "Value " + i + ": ");
+			}
+		});
+	}
+}
@@ -0,0 +1,58 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Navigation;
+
+/**
+ * Asks for the distances and times from one point to many destinations at once
+ * and compares them with the answers of the single queries.
+ */
+public class OneToManyTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	private static final List<String> CITIES = Arrays.asList("Siegen", "Goeteborg", "Dresden", "Bremen", "Aachen",
+			"Mainz", "Passau", "Schwerin", "Berlin", "Hamburg", "Kiel", "Bamberg", "Duisburg", "Munich", "Augsburg",
+			"Atlantis", "Kiel");
+
+	@Test
+	public void TestFile3_Distances_And_Times() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+			for (String from : CITIES) {
+				int[] distances = lab.findShortestDistances(from, CITIES);
+				int[] times = lab.findFastestTimes(from, CITIES);
+				for (int i = 0; i < CITIES.size(); i++) {
+					String to = CITIES.get(i);
+					assertEquals(lab.findShortestDistance(from, to), distances[i],
+							"Distance from " + from + " to " + to + ": ");
+					assertEquals(lab.findFastestTime(from, to), times[i], "Time from " + from + " to " + to + ": ");
+				}
+			}
+		});
+	}
+
+	@Test
+	public void TestFile1_Status_Codes() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			int[] distances = lab.findShortestDistances("B", Arrays.asList("A", "B", "H", "X"));
+			assertEquals(Navigation.NO_PATH, distances[0], "From B to A: ");
+			assertEquals(0, distances[1], "From B to B: ");
+			assertEquals(22, distances[2], "From B to H: ");
+			assertEquals(Navigation.DESTINATION_NOT_FOUND, distances[3], "From B to X: ");
+
+			int[] times = lab.findFastestTimes("X", Arrays.asList("A", "Y"));
+			assertEquals(Navigation.SOURCE_NOT_FOUND, times[0], "From X to A: ");
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND, times[1], "From X to Y: ");
+		});
+	}
+}
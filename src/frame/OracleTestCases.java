@@ -0,0 +1,56 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Navigation;
+
+/**
+ * Answers the queries from the precomputed all-pairs tables and compares them
+ * with the searches, in memory and after the tables went through a snapshot
+ * file.
+ */
+public class OracleTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	@Test
+	public void TestFile3_Oracle_Equals_Dijkstra() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dijkstra = Fixtures.dijkstra("TestFile3");
+			Navigation lab = new Navigation("TestFile3");
+			lab.prepareOracles();
+			Fixtures.assertSameAnswers(dijkstra, lab);
+		});
+	}
+
+	@Test
+	public void TestFile1_Oracle_From_Snapshot() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dot = new Navigation("TestFile1");
+			dot.prepareOracles();
+			File snapshot = File.createTempFile("TestFile1", ".snap");
+			snapshot.deleteOnExit();
+			dot.saveSnapshot(snapshot.getPath());
+
+			Navigation lab = new Navigation(snapshot.getPath());
+			ArrayList<String> route = new ArrayList<String>();
+			route.add("A\\s*->\\s*C");
+			route.add("C\\s*->\\s*D");
+			route.add("D\\s*->\\s*F");
+			route.add("F\\s*->\\s*G");
+			route.add("G\\s*->\\s*H");
+			assertTrue(AllTests.testRoute(true, lab.findShortestRoute("A", "H"), route, "TestFile1", "A", "H",
+					AllTests.OutputFormat.RouteDistance), "Route not correct");
+			assertEquals(Navigation.NO_PATH, lab.findShortestDistance("B", "A"), "From B to A: ");
+			assertEquals(dot.findFastestTime("A", "H"), lab.findFastestTime("A", "H"), "From A to H: ");
+		});
+	}
+}
@@ -0,0 +1,73 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Navigation;
+
+/**
+ * Draws routes through the edge index of the map: the copy and the view give
+ * the same lines, repeated requests do not pile up bold markers and only the
+ * exact edges of the route are marked.
+ */
+public class RenderingTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	@Test
+	public void TestFile3_View_Equals_Copy() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+			for (String from : Fixtures.CITIES) {
+				for (String to : Fixtures.CITIES) {
+					assertEquals(lab.findShortestRoute(from, to), lab.findShortestRouteView(from, to),
+							"Route from " + from + " to " + to + ": ");
+					assertEquals(lab.findFastestRoute(from, to), lab.findFastestRouteView(from, to),
+							"Route from " + from + " to " + to + ": ");
+				}
+			}
+		});
+	}
+
+	@Test
+	public void TestFile1_Repeated_Requests_Do_Not_Pile_Up() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			ArrayList<String> first = lab.findShortestRoute("A", "H");
+			ArrayList<String> second = lab.findShortestRoute("A", "H");
+			assertEquals(first, second);
+			// A -> C -> D -> F -> G -> H
+			assertEquals(5, Fixtures.boldLines(second));
+			assertEquals(0, Fixtures.boldLines(lab.findShortestRoute("B", "A")));
+		});
+	}
+
+	@Test
+	public void Only_Exact_Edges_Are_Marked() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File file = File.createTempFile("Prefixes", ".dot");
+			file.deleteOnExit();
+			Files.write(file.toPath(),
+					Arrays.asList("Digraph {", "A -> B [label=\"1,60\"];", "AA -> B [label=\"1,60\"];",
+							"A -> BB [label=\"1,60\"];", "A [label=\"A,0\"];", "AA [label=\"AA,0\"];",
+							"B [label=\"B,0\"];", "BB [label=\"BB,0\"];", "}"));
+			Navigation lab = new Navigation(file.getPath());
+			List<String> map = lab.findShortestRouteView("A", "B");
+			assertEquals(1, Fixtures.boldLines(map));
+			assertTrue(map.get(1).contains("bold"));
+			assertFalse(map.get(2).contains("bold"));
+			assertFalse(map.get(3).contains("bold"));
+		});
+	}
+}
@@ -0,0 +1,115 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Navigation;
+import lab.RouteWriter;
+
+/**
+ * Streams maps with marked routes to writers, streams and channels, in full and
+ * as difference to the loaded map.
+ */
+public class RouteWriterTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	private static String joined(List<String> lines) {
+		StringBuilder text = new StringBuilder();
+		for (String line : lines) {
+			text.append(line).append('\n');
+		}
+		return text.toString();
+	}
+
+	@Test
+	public void TestFile3_Full_Equals_Route() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+			StringWriter out = new StringWriter();
+			lab.shortestRouteWriter("Siegen", "Munich", RouteWriter.Mode.FULL).writeTo(out);
+			assertEquals(joined(lab.findShortestRoute("Siegen", "Munich")), out.toString());
+
+			out = new StringWriter();
+			lab.fastestRouteWriter("Kiel", "Passau", RouteWriter.Mode.FULL).writeTo(out);
+			assertEquals(joined(lab.findFastestRoute("Kiel", "Passau")), out.toString());
+		});
+	}
+
+	@Test
+	public void TestFile1_Diff_Only_Route() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			RouteWriter writer = lab.shortestRouteWriter("A", "H", RouteWriter.Mode.DIFF);
+			// A -> C -> D -> F -> G -> H
+			assertEquals(5, writer.getMarkedCount());
+
+			StringWriter out = new StringWriter();
+			writer.writeTo(out);
+			String[] lines = out.toString().split("\n");
+			assertEquals(7, lines.length);
+			assertEquals("Digraph {", lines[0]);
+			assertEquals("}", lines[6]);
+			for (int i = 1; i < 6; i++) {
+				assertTrue(lines[i].contains("bold"), lines[i]);
+			}
+
+			// no route: only the frame
+			out = new StringWriter();
+			lab.shortestRouteWriter("B", "A", RouteWriter.Mode.DIFF).writeTo(out);
+			assertEquals("Digraph {\n}\n", out.toString());
+		});
+	}
+
+	@Test
+	public void TestFile2_Stream_And_Channel() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile2");
+			RouteWriter writer = lab.fastestRouteWriter("A", "E", RouteWriter.Mode.FULL);
+			StringWriter text = new StringWriter();
+			writer.writeTo(text);
+
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			writer.writeTo(stream);
+			assertEquals(text.toString(), new String(stream.toByteArray(), StandardCharsets.UTF_8));
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			writer.writeTo(Channels.newChannel(bytes));
+			assertEquals(text.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+		});
+	}
+
+	@Test
+	public void Diff_Finds_The_Frame_Anywhere() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File file = File.createTempFile("Framed", ".dot");
+			file.deleteOnExit();
+			Files.write(file.toPath(),
+					Arrays.asList("// two points", "", "Digraph {", "A -> B [label=\"1,60\"];",
+							"B -> C [label=\"1,60\"];", "A [label=\"A,0\"];", "B [label=\"B,0\"];",
+							"C [label=\"C,0\"];", "}", "", "// end"));
+			Navigation lab = new Navigation(file.getPath());
+			StringWriter out = new StringWriter();
+			lab.shortestRouteWriter("A", "C", RouteWriter.Mode.DIFF).writeTo(out);
+			assertEquals("Digraph {\nA -> B [label=\"1,60\"][style = bold];\nB -> C [label=\"1,60\"][style = bold];\n}\n",
+					out.toString());
+
+			out = new StringWriter();
+			lab.shortestRouteWriter("C", "A", RouteWriter.Mode.DIFF).writeTo(out);
+			assertEquals("Digraph {\n}\n", out.toString());
+		});
+	}
+}
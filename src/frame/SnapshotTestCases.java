@@ -0,0 +1,175 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Navigation;
+
+/**
+ * Saves maps as binary snapshot files and checks that a Navigation on the
+ * snapshot answers exactly like one on the Dot file.
+ */
+public class SnapshotTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	/*
+	 * Section types of the snapshot file (see lab.SnapshotFile)
+	 */
+	private static final int NAME_TABLE = 3;
+	private static final int EDGE_TARGETS = 5;
+	private static final int DISTANCE_WEIGHTS = 6;
+
+	private static File snapshotOf(String filename) throws Exception {
+		File snapshot = File.createTempFile(filename, ".snap");
+		snapshot.deleteOnExit();
+		new Navigation(filename).saveSnapshot(snapshot.getPath());
+		return snapshot;
+	}
+
+	@Test
+	public void TestFile3_Snapshot_Distance_And_Time() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation dot = new Navigation("TestFile3");
+			Navigation snapshot = new Navigation(snapshotOf("TestFile3").getPath());
+			Fixtures.assertSameAnswers(dot, snapshot);
+			assertEquals(Navigation.SOURCE_NOT_FOUND, snapshot.findShortestDistance("Atlantis", "Kiel"),
+					"From Atlantis to Kiel: ");
+		});
+	}
+
+	@Test
+	public void TestFile1_Snapshot_Route() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation(snapshotOf("TestFile1").getPath());
+			ArrayList<String> route = new ArrayList<String>();
+			route.add("A\\s*->\\s*C");
+			route.add("C\\s*->\\s*D");
+			route.add("D\\s*->\\s*F");
+			route.add("F\\s*->\\s*G");
+			route.add("G\\s*->\\s*H");
+			assertTrue(AllTests.testRoute(true, lab.findShortestRoute("A", "H"), route, "TestFile1", "A", "H",
+					AllTests.OutputFormat.RouteDistance), "Route not correct");
+		});
+	}
+
+	@Test
+	public void TestFile1_Corrupt_Snapshot_Is_Rejected() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File snapshot = snapshotOf("TestFile1");
+			try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+				// changes the node count in the header
+				file.seek(16);
+				file.write(99);
+			}
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND,
+					new Navigation(snapshot.getPath()).findShortestDistance("A", "H"), "From A to H: ");
+		});
+	}
+
+	@Test
+	public void TestFile1_Corrupt_Data_Is_Rejected() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File snapshot = snapshotOf("TestFile1");
+			ByteBuffer bytes = read(snapshot);
+			// a byte of the first edge length: only the data checksum notices it
+			int offset = (int) section(bytes, DISTANCE_WEIGHTS)[0];
+			bytes.put(offset + 6, (byte) (bytes.get(offset + 6) ^ 0x10));
+			Files.write(snapshot.toPath(), bytes.array());
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND,
+					new Navigation(snapshot.getPath()).findShortestDistance("A", "H"), "From A to H: ");
+
+			snapshot = snapshotOf("TestFile1");
+			bytes = read(snapshot);
+			// an id in the name table
+			offset = (int) section(bytes, NAME_TABLE)[0];
+			bytes.putInt(offset, 1000);
+			Files.write(snapshot.toPath(), bytes.array());
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND,
+					new Navigation(snapshot.getPath()).findShortestDistance("A", "H"), "From A to H: ");
+		});
+	}
+
+	@Test
+	public void TestFile1_Corrupt_Structure_Is_Rejected() {
+		assertTimeoutPreemptively(timeout, () -> {
+			// the checksums are fixed after the damage, so only the checks of the
+			// structure can notice it
+
+			File snapshot = snapshotOf("TestFile1");
+			ByteBuffer bytes = read(snapshot);
+			// an edge to a node which does not exist
+			bytes.putInt((int) section(bytes, EDGE_TARGETS)[0], 8);
+			fixChecksums(bytes);
+			Files.write(snapshot.toPath(), bytes.array());
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND,
+					new Navigation(snapshot.getPath()).findShortestDistance("A", "H"), "From A to H: ");
+
+			snapshot = snapshotOf("TestFile1");
+			bytes = read(snapshot);
+			// a name table without free slot (an unknown name would be searched forever)
+			long[] table = section(bytes, NAME_TABLE);
+			for (int slot = 0; slot < table[1] / 4; slot++) {
+				int at = (int) table[0] + 4 * slot;
+				if (bytes.getInt(at) == 0)
+					bytes.putInt(at, 1);
+			}
+			fixChecksums(bytes);
+			Files.write(snapshot.toPath(), bytes.array());
+			Navigation lab = new Navigation(snapshot.getPath());
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND, lab.findShortestDistance("A", "H"),
+					"From A to H: ");
+			assertEquals(Navigation.SOURCE_DESTINATION_NOT_FOUND, lab.findShortestDistance("X", "Y"),
+					"From X to Y: ");
+		});
+	}
+
+	private static ByteBuffer read(File file) throws Exception {
+		return ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * @return offset and length of the section of the given type
+	 */
+	private static long[] section(ByteBuffer bytes, int type) {
+		int count = bytes.getInt(12);
+		for (int i = 0; i < count; i++) {
+			int entry = 40 + 24 * i;
+			if (bytes.getInt(entry) == type)
+				return new long[] { bytes.getLong(entry + 8), bytes.getLong(entry + 16) };
+		}
+		throw new IllegalArgumentException("no section " + type);
+	}
+
+	/*
+	 * data checksum over all sections, then header checksum over header and
+	 * section table (with 0 in place of the header checksum)
+	 */
+	private static void fixChecksums(ByteBuffer bytes) {
+		int count = bytes.getInt(12);
+		CRC32 data = new CRC32();
+		for (int i = 0; i < count; i++) {
+			int entry = 40 + 24 * i;
+			data.update(bytes.array(), (int) bytes.getLong(entry + 8), (int) bytes.getLong(entry + 16));
+		}
+		bytes.putLong(24, data.getValue());
+		byte[] header = Arrays.copyOf(bytes.array(), 40 + 24 * count);
+		Arrays.fill(header, 32, 36, (byte) 0);
+		CRC32 crc = new CRC32();
+		crc.update(header);
+		bytes.putInt(32, (int) crc.getValue());
+	}
+}
@@ -0,0 +1,152 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import lab.CompactGraph;
+import lab.Dijkstra;
+import lab.Navigation;
+
+/**
+ * Changes the weights of many connections at once and checks the new answers.
+ * Only the updated Navigation sees the new weights, all others on the same file
+ * keep the original ones.
+ */
+public class TrafficUpdateTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	@Test
+	public void TestFile1_Update_Distance_And_Time() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			assertEquals(14, lab.findShortestDistance("A", "D"), "From A to D: ");
+
+			// C -> D gets longer, A -> B gets slower, X -> Y is not on the map
+			int changed = lab.updateConnections(new String[] { "C", "A", "X" }, new String[] { "D", "B", "Y" },
+					new double[] { 20, 10, 1 }, new double[] { 80, 30, 50 });
+			assertEquals(2, changed);
+			// A -> C -> B -> D: 8 + 1 + 7 km
+			assertEquals(16, lab.findShortestDistance("A", "D"), "From A to D: ");
+			// A -> C -> B -> D: 6 + 1.2 + 7 minutes driving, 3 + 4 waiting
+			assertEquals(22, lab.findFastestTime("A", "D"), "From A to D: ");
+		});
+	}
+
+	@Test
+	public void TestFile1_Update_Stays_In_Its_Navigation() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation before = new Navigation("TestFile1");
+			Navigation lab = new Navigation("TestFile1");
+			lab.updateConnections(new String[] { "C" }, new String[] { "D" }, new double[] { 20 },
+					new double[] { 80 });
+			assertEquals(16, lab.findShortestDistance("A", "D"), "From A to D: ");
+
+			// the shared map keeps the weights of the file
+			assertEquals(14, before.findShortestDistance("A", "D"), "From A to D: ");
+			Navigation after = new Navigation("TestFile1");
+			assertEquals(14, after.findShortestDistance("A", "D"), "From A to D: ");
+			assertEquals(before.findShortestRoute("A", "D"), after.findShortestRoute("A", "D"));
+		});
+	}
+
+	@Test
+	public void TestFile1_Update_Changes_Only_The_Labels() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			// no route from B to A: the map as it is
+			List<String> before = lab.findShortestRoute("B", "A");
+			lab.updateConnections(new String[] { "C" }, new String[] { "D" }, new double[] { 20.5 },
+					new double[] { 80 });
+			List<String> after = lab.findShortestRoute("B", "A");
+
+			assertEquals(before.size(), after.size());
+			int changed = 0;
+			for (int i = 0; i < before.size(); i++) {
+				if (!before.get(i).equals(after.get(i))) {
+					changed++;
+					assertTrue(before.get(i).matches("C\\s*->\\s*D.*"), before.get(i));
+					assertEquals(before.get(i).replaceAll("label=\"[^\"]*\"", "label=\"20.5,80\""), after.get(i));
+				}
+			}
+			assertEquals(1, changed);
+		});
+	}
+
+	@Test
+	public void Update_Keeps_Fractions_And_Old_Snapshot() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Dijkstra<String> graph = new Dijkstra<String>();
+			graph.addEdge("A", "B", 1);
+			graph.addEdge("B", "C", 1);
+			CompactGraph before = graph.freeze();
+
+			assertEquals(1, graph.updateWeights(new String[] { "A" }, new String[] { "B" }, new double[] { 2.25 }));
+			assertEquals(3.25, graph.getRouteLength("A", "C").getValue(), 1e-9);
+			// a search which started before the update still sees the old weights
+			assertEquals(1, before.weight(0), 1e-9);
+
+			graph.addEdge("B", "C", 0.5);
+			assertEquals(2.75, graph.getRouteLength("A", "C").getValue(), 1e-9);
+			assertThrows(IllegalArgumentException.class,
+					() -> graph.updateWeights(new String[] { "A" }, new String[0], new double[] { 1 }));
+		});
+	}
+
+	@Test
+	public void TestFile1_Snapshot_Update_While_Querying() {
+		assertTimeoutPreemptively(timeout, () -> {
+			File snapshot = File.createTempFile("TestFile1", ".snap");
+			snapshot.deleteOnExit();
+			new Navigation("TestFile1").saveSnapshot(snapshot.getPath());
+			Navigation lab = new Navigation(snapshot.getPath());
+			Navigation dot = new Navigation("TestFile1");
+			lab.setAlgorithm(Dijkstra.Algorithm.DIJKSTRA);
+			assertTrue(lab.addHotSource("A"));
+			lab.setCacheCapacity(0);
+
+			// the points have to be found during the updates as well
+			AtomicInteger lost = new AtomicInteger();
+			Thread[] threads = new Thread[2];
+			for (int t = 0; t < threads.length; t++) {
+				threads[t] = new Thread(() -> {
+					for (int i = 0; i < 2000; i++) {
+						int distance = lab.findShortestDistance("B", "H");
+						if (distance < 0 && distance != Navigation.NO_PATH)
+							lost.incrementAndGet();
+					}
+				});
+				threads[t].start();
+			}
+			for (int i = 0; i < 50; i++) {
+				String[] from = { "C", "A" };
+				String[] to = { "D", "B" };
+				double[] lengths = { 5 + i % 20, 10 + i % 7 };
+				double[] speeds = { 80, 30 };
+				lab.updateConnections(from, to, lengths, speeds);
+				dot.updateConnections(from, to, lengths, speeds);
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			assertEquals(0, lost.get());
+
+			// the tree of the hot source was repaired on the snapshot
+			for (String point : new String[] { "B", "C", "D", "E", "F", "G", "H" }) {
+				assertEquals(dot.findShortestDistance("A", point), lab.findShortestDistance("A", point),
+						"From A to " + point + ": ");
+				assertEquals(dot.findFastestTime("A", point), lab.findFastestTime("A", point),
+						"From A to " + point + ": ");
+			}
+		});
+	}
+}
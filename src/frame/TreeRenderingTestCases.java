@@ -0,0 +1,85 @@
+package frame;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import lab.Navigation;
+import lab.RouteWriter;
+
+/**
+ * Draws all shortest (fastest) routes starting in one point at once: every
+ * route to a single destination is part of the tree.
+ */
+public class TreeRenderingTestCases {
+
+	private Duration timeout = Duration.ofSeconds(10);
+
+	/*
+	 * every bold line of the route has to be bold in the tree as well
+	 */
+	private static void assertContained(List<String> route, List<String> tree, String message) {
+		assertEquals(route.size(), tree.size(), message);
+		for (int i = 0; i < route.size(); i++) {
+			if (route.get(i).contains("bold"))
+				assertEquals(route.get(i), tree.get(i), message);
+		}
+	}
+
+	@Test
+	public void TestFile1_Tree_From_A() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile1");
+			ArrayList<String> tree = lab.findShortestRouteTree("A");
+			// all eight points are reached from A, one edge leads to each but A
+			assertEquals(7, Fixtures.boldLines(tree));
+			for (String to : new String[] { "B", "C", "D", "E", "F", "G", "H" }) {
+				assertContained(lab.findShortestRoute("A", to), tree, "Route from A to " + to + ": ");
+			}
+			assertEquals(7, Fixtures.boldLines(lab.findFastestRouteTree("A")));
+
+			// not on the map: nothing is marked
+			assertEquals(lab.findShortestRoute("X", "A"), lab.findShortestRouteTree("X"));
+			assertEquals(0, Fixtures.boldLines(lab.findFastestRouteTree("X")));
+		});
+	}
+
+	@Test
+	public void TestFile3_Routes_Are_Part_Of_Tree() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+			for (String from : Fixtures.CITIES) {
+				ArrayList<String> shortest = lab.findShortestRouteTree(from);
+				ArrayList<String> fastest = lab.findFastestRouteTree(from);
+				for (String to : Fixtures.CITIES) {
+					assertContained(lab.findShortestRoute(from, to), shortest, "Route from " + from + " to " + to + ": ");
+					assertContained(lab.findFastestRoute(from, to), fastest, "Route from " + from + " to " + to + ": ");
+				}
+			}
+		});
+	}
+
+	@Test
+	public void TestFile3_Hot_Source_And_Writer() {
+		assertTimeoutPreemptively(timeout, () -> {
+			Navigation lab = new Navigation("TestFile3");
+			ArrayList<String> searched = lab.findFastestRouteTree("Siegen");
+			lab.addHotSource("Siegen");
+			// the tree kept for the hot source gives the same drawing
+			assertEquals(searched, lab.findFastestRouteTree("Siegen"));
+			lab.removeHotSource("Siegen");
+
+			RouteWriter writer = lab.fastestTreeWriter("Siegen", RouteWriter.Mode.DIFF);
+			assertEquals(Fixtures.boldLines(searched), writer.getMarkedCount());
+			StringWriter out = new StringWriter();
+			writer.writeTo(out);
+			assertEquals(writer.getMarkedCount() + 2, out.toString().split("\n").length);
+		});
+	}
+}
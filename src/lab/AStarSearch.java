@@ -0,0 +1,90 @@
+package lab;
+
+/**
+ * Goal-directed point-to-point search (A* with landmark bounds, ALT). It works
+ * like the search from the source, but the frontier is ordered by the distance
+ * from the source plus a lower bound of the remaining way to the destination,
+ * taken from the landmark tables. So nodes leading away from the destination
+ * are settled late or never, and the search stops as soon as the destination is
+ * settled.
+ *
+ * Without landmarks (or with tables of an older snapshot of the graph) the bound
+ * is 0 and the search is a plain Dijkstra which stops at the destination.
+ *
+ * @author thecr
+ *
+ */
+final class AStarSearch {
+
+	private AStarSearch() {
+	}
+
+	/**
+	 * Searches the best route from source to destination
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param source
+	 *            id of the source node
+	 * @param destination
+	 *            id of the destination node
+	 * @param waiting
+	 *            true if the waiting times of the nodes have to be added (time
+	 *            search)
+	 * @param landmarks
+	 *            landmark tables of the graph for the same metric (or null)
+	 * @param workspace
+	 *            workspace for the search
+	 * @param type
+	 *            the kind of queue used as frontier
+	 * @param arity
+	 *            number of children per heap node (only used by the d-ary heap)
+	 * @return the route or NO_PATH
+	 */
+	static RouteResult search(CompactGraph graph, int source, int destination, boolean waiting, Landmarks landmarks,
+			SearchWorkspace workspace, Dijkstra.FrontierType type, int arity) {
+		if (landmarks != null && !landmarks.belongsTo(graph))
+			landmarks = null;
+
+		workspace.begin(graph.size(), source);
+		Frontier frontier = workspace.frontier(type, arity);
+		workspace.update(source, 0, -1);
+		frontier.insertOrDecrease(source, 0);
+
+		while (!frontier.isEmpty()) {
+			int node = frontier.poll();
+			if (node == destination)
+				return result(workspace, destination);
+
+			double distance = workspace.distance(node);
+			// waiting time of the node we leave (not at the source)
+			double wait = waiting && node != source ? graph.waitingTime(node) : 0;
+
+			for (int e = graph.firstEdge(node); e < graph.lastEdge(node); e++) {
+				int next = graph.target(e);
+				double total = distance + graph.weight(e) + wait;
+				if (total < workspace.distance(next)) {
+					workspace.update(next, total, node);
+					double bound = landmarks == null ? 0 : landmarks.lowerBound(next, destination);
+					frontier.insertOrDecrease(next, total + bound);
+				}
+			}
+		}
+		return RouteResult.failed(Navigation.NO_PATH);
+	}
+
+	/**
+	 * Reads the route to the destination out of the workspace
+	 */
+	private static RouteResult result(SearchWorkspace workspace, int destination) {
+		int count = 0;
+		for (int n = destination; n >= 0; n = workspace.predecessor(n)) {
+			count++;
+		}
+		int[] path = new int[count];
+		for (int n = destination; n >= 0; n = workspace.predecessor(n)) {
+			path[--count] = n;
+		}
+		return new RouteResult(RouteResult.FOUND, workspace.distance(destination), path);
+	}
+}
@@ -0,0 +1,145 @@
+package lab;
+
+/**
+ * Bidirectional Dijkstra for point-to-point queries: one search runs forward
+ * from the source, the other one backward (on the reverse graph) from the
+ * destination, always expanding the side with the smaller key. Whenever an edge
+ * reaches a node the other search has reached as well, the route over that node
+ * is a candidate. The searches stop as soon as the two smallest keys together
+ * are not smaller than the best candidate (the meeting-point rule), which on
+ * road-like maps happens long before either search has covered the map.
+ * 
+ * For the time search the waiting time of a node is added when a route travels
+ * through it: the forward search adds it when leaving a node, the backward
+ * search when arriving at one, and never for the source. So a node where both
+ * searches meet is counted exactly once and source and destination are never
+ * counted.
+ * 
+ * @author thecr
+ *
+ */
+final class BidirectionalSearch {
+
+	private BidirectionalSearch() {
+	}
+
+	/**
+	 * Searches the best route from source to destination
+	 * 
+	 * @param graph
+	 *            the graph (its reverse graph is used for the backward search)
+	 * @param source
+	 *            id of the source node
+	 * @param destination
+	 *            id of the destination node
+	 * @param waiting
+	 *            true if the waiting times of the nodes have to be added (time
+	 *            search)
+	 * @param forward
+	 *            workspace for the forward search
+	 * @param backward
+	 *            workspace for the backward search
+	 * @param type
+	 *            the kind of queue used as frontier
+	 * @param arity
+	 *            number of children per heap node (only used by the d-ary heap)
+	 * @return the route or NO_PATH
+	 */
+	static RouteResult search(CompactGraph graph, int source, int destination, boolean waiting,
+			SearchWorkspace forward, SearchWorkspace backward, Dijkstra.FrontierType type, int arity) {
+		CompactGraph reverse = graph.reverse();
+
+		forward.begin(graph.size(), source);
+		backward.begin(graph.size(), destination);
+		Frontier forwardQueue = forward.frontier(type, arity);
+		Frontier backwardQueue = backward.frontier(type, arity);
+
+		forward.update(source, 0, -1);
+		forwardQueue.insertOrDecrease(source, 0);
+		backward.update(destination, 0, -1);
+		backwardQueue.insertOrDecrease(destination, 0);
+
+		// best route found so far and the node where its two halves meet
+		double best = source == destination ? 0 : SearchWorkspace.UNREACHED;
+		int meeting = source == destination ? source : -1;
+
+		while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+			double forwardKey = forwardQueue.peekKey();
+			double backwardKey = backwardQueue.peekKey();
+
+			// meeting-point rule: no route over an unsettled node can be better
+			if (forwardKey + backwardKey >= best)
+				break;
+
+			if (forwardKey <= backwardKey) {
+				int node = forwardQueue.poll();
+				double distance = forward.distance(node);
+				// waiting time of the node we leave (not at the source)
+				double wait = waiting && node != source ? graph.waitingTime(node) : 0;
+
+				for (int e = graph.firstEdge(node); e < graph.lastEdge(node); e++) {
+					int next = graph.target(e);
+					double total = distance + graph.weight(e) + wait;
+					if (total < forward.distance(next)) {
+						forward.update(next, total, node);
+						forwardQueue.insertOrDecrease(next, total);
+						if (backward.reached(next) && total + backward.distance(next) < best) {
+							best = total + backward.distance(next);
+							meeting = next;
+						}
+					}
+				}
+			} else {
+				int node = backwardQueue.poll();
+				double distance = backward.distance(node);
+
+				// the edges of the reverse graph lead to the nodes we come from
+				for (int e = reverse.firstEdge(node); e < reverse.lastEdge(node); e++) {
+					int previous = reverse.target(e);
+					// waiting time of the node we arrive from (not at the source)
+					double wait = waiting && previous != source ? graph.waitingTime(previous) : 0;
+					double total = distance + reverse.weight(e) + wait;
+					if (total < backward.distance(previous)) {
+						backward.update(previous, total, node);
+						backwardQueue.insertOrDecrease(previous, total);
+						if (forward.reached(previous) && total + forward.distance(previous) < best) {
+							best = total + forward.distance(previous);
+							meeting = previous;
+						}
+					}
+				}
+			}
+		}
+
+		if (meeting < 0)
+			return RouteResult.failed(Navigation.NO_PATH);
+		return new RouteResult(RouteResult.FOUND, best, path(forward, backward, meeting));
+	}
+
+	/**
+	 * Puts the route together: from the source to the meeting node along the
+	 * fathers of the forward search, then to the destination along the fathers of
+	 * the backward search
+	 */
+	private static int[] path(SearchWorkspace forward, SearchWorkspace backward, int meeting) {
+		int half = 0;
+		for (int n = meeting; n >= 0; n = forward.predecessor(n)) {
+			half++;
+		}
+		int count = half;
+		for (int n = backward.predecessor(meeting); n >= 0; n = backward.predecessor(n)) {
+			count++;
+		}
+
+		int[] path = new int[count];
+		int position = half;
+		for (int n = meeting; n >= 0; n = forward.predecessor(n)) {
+			path[--position] = n;
+		}
+		position = half;
+		for (int n = backward.predecessor(meeting); n >= 0; n = backward.predecessor(n)) {
+			path[position++] = n;
+		}
+		return path;
+	}
+}
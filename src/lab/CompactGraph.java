@@ -0,0 +1,287 @@
+package lab;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Immutable compressed-sparse-row (CSR) snapshot of a graph. The outgoing edges
+ * of node u are stored at the positions firstEdge(u) (inclusive) to
+ * lastEdge(u) (exclusive) of the target and weight arrays, so the searches can
+ * walk the adjacency of a node as one contiguous block of primitives instead of
+ * following Node and Edge objects. The waiting time of every node (in minutes,
+ * 0 if it has none) is kept in an array indexed by node id as well.
+ *
+ * The arrays are held as primitive buffers: snapshots created by
+ * {@link Dijkstra#freeze()} wrap plain Java arrays, snapshots opened from a
+ * snapshot file ({@link SnapshotFile}) are views on the memory-mapped file and
+ * are searched without reading them in first. Either way a snapshot never
+ * changes.
+ *
+ * @author thecr
+ *
+ */
+public final class CompactGraph {
+
+	// offsets[u] is the position of the first outgoing edge of node u, offsets[n]
+	// is the number of edges
+	private final IntBuffer offsets;
+	// id of the node each edge goes to
+	private final IntBuffer targets;
+	// weight of each edge, parallel to targets
+	private final DoubleBuffer weights;
+	// waiting time of every node
+	private final DoubleBuffer waitingTimes;
+
+	// the same graph with every edge turned around, built when it is first needed
+	private volatile CompactGraph reverse;
+	// position in this graph of every edge of the reverse graph (only set on the
+	// graph the reverse was built from), so snapshots with other weights can
+	// reuse the reverse structure
+	private int[] reverseEdges;
+
+	/**
+	 * Constructor
+	 *
+	 * @param offsets
+	 *            start of the edge block of every node (length = number of nodes
+	 *            + 1)
+	 * @param targets
+	 *            target node id of every edge
+	 * @param weights
+	 *            weight of every edge
+	 * @param waitingTimes
+	 *            waiting time of every node
+	 */
+	CompactGraph(int[] offsets, int[] targets, double[] weights, double[] waitingTimes) {
+		this(IntBuffer.wrap(offsets), IntBuffer.wrap(targets), DoubleBuffer.wrap(weights),
+				DoubleBuffer.wrap(waitingTimes));
+	}
+
+	/**
+	 * Constructor for a snapshot on existing buffers (for example views on a
+	 * memory-mapped file). The buffers must not be changed afterwards
+	 *
+	 * @param offsets
+	 *            start of the edge block of every node (length = number of nodes
+	 *            + 1)
+	 * @param targets
+	 *            target node id of every edge
+	 * @param weights
+	 *            weight of every edge
+	 * @param waitingTimes
+	 *            waiting time of every node
+	 */
+	CompactGraph(IntBuffer offsets, IntBuffer targets, DoubleBuffer weights, DoubleBuffer waitingTimes) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.waitingTimes = waitingTimes;
+	}
+
+	/**
+	 * @return the number of nodes in the snapshot
+	 */
+	public int size() {
+		return offsets.limit() - 1;
+	}
+
+	/**
+	 * @return the number of edges in the snapshot
+	 */
+	public int edgeCount() {
+		return targets.limit();
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @return position of the first outgoing edge of the node
+	 */
+	public int firstEdge(int node) {
+		return offsets.get(node);
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @return position after the last outgoing edge of the node
+	 */
+	public int lastEdge(int node) {
+		return offsets.get(node + 1);
+	}
+
+	/**
+	 * @param edge
+	 *            position of the edge
+	 * @return id of the node the edge goes to
+	 */
+	public int target(int edge) {
+		return targets.get(edge);
+	}
+
+	/**
+	 * @param edge
+	 *            position of the edge
+	 * @return weight of the edge (either in km or in minutes)
+	 */
+	public double weight(int edge) {
+		return weights.get(edge);
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @return the time (in minutes) one has to wait when travelling through the
+	 *         node
+	 */
+	public double waitingTime(int node) {
+		return waitingTimes.get(node);
+	}
+
+	/**
+	 * Looks an edge up in the block of its start node
+	 * 
+	 * @param from
+	 *            id of the node the edge starts at
+	 * @param to
+	 *            id of the node the edge goes to
+	 * @return position of the edge, -1 if there is none
+	 */
+	int findEdge(int from, int to) {
+		for (int e = firstEdge(from); e < lastEdge(from); e++) {
+			if (targets.get(e) == to)
+				return e;
+		}
+		return -1;
+	}
+
+	/**
+	 * @return a copy of the weights of all edges, by position
+	 */
+	double[] copyWeights() {
+		double[] copy = new double[edgeCount()];
+		// a duplicate has its own position, so other readers are not disturbed
+		DoubleBuffer all = weights.duplicate();
+		all.position(0);
+		all.get(copy);
+		return copy;
+	}
+
+	/**
+	 * Creates a snapshot with the same nodes, edges and waiting times but other
+	 * weights. Nothing but the weights is copied; if the reverse graph of this
+	 * snapshot was built already, the new snapshot gets one as well, with the new
+	 * weights put into the same structure
+	 * 
+	 * @param weights
+	 *            the new weight of every edge, by position (must not be changed
+	 *            afterwards)
+	 * @return the new snapshot
+	 */
+	CompactGraph withWeights(double[] weights) {
+		if (weights.length != edgeCount())
+			throw new IllegalArgumentException("Weights do not fit the graph");
+		CompactGraph graph = new CompactGraph(offsets, targets, DoubleBuffer.wrap(weights), waitingTimes);
+		CompactGraph reversed = reverse;
+		if (reversed != null && reverseEdges != null) {
+			int[] order = reverseEdges;
+			double[] reverseWeights = new double[order.length];
+			for (int position = 0; position < order.length; position++) {
+				reverseWeights[position] = weights[order[position]];
+			}
+			CompactGraph turned = new CompactGraph(reversed.offsets, reversed.targets,
+					DoubleBuffer.wrap(reverseWeights), waitingTimes);
+			turned.reverse = graph;
+			graph.reverseEdges = order;
+			graph.reverse = turned;
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the reverse graph: the same nodes (with the same waiting times) and
+	 * for every edge u -> v of this graph an edge v -> u with the same weight. It
+	 * is built the first time it is needed and then kept with this snapshot
+	 * 
+	 * @return the reverse graph
+	 */
+	public CompactGraph reverse() {
+		CompactGraph reversed = reverse;
+		if (reversed == null) {
+			synchronized (this) {
+				reversed = reverse;
+				if (reversed == null) {
+					reversed = transpose();
+					reversed.reverse = this;
+					reverse = reversed;
+				}
+			}
+		}
+		return reversed;
+	}
+
+	/**
+	 * Builds the reverse graph (counting sort of the edges by their target)
+	 */
+	private CompactGraph transpose() {
+		int n = size();
+		int m = edgeCount();
+		int[] reverseOffsets = new int[n + 1];
+		int[] reverseTargets = new int[m];
+		double[] reverseWeights = new double[m];
+		int[] order = new int[m];
+
+		for (int e = 0; e < m; e++) {
+			reverseOffsets[targets.get(e) + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			reverseOffsets[i + 1] += reverseOffsets[i];
+		}
+		int[] next = new int[n];
+		System.arraycopy(reverseOffsets, 0, next, 0, n);
+		for (int u = 0; u < n; u++) {
+			for (int e = firstEdge(u); e < lastEdge(u); e++) {
+				int position = next[targets.get(e)]++;
+				reverseTargets[position] = u;
+				reverseWeights[position] = weights.get(e);
+				order[position] = e;
+			}
+		}
+		// written before the reverse graph is published (see reverse)
+		reverseEdges = order;
+		return new CompactGraph(IntBuffer.wrap(reverseOffsets), IntBuffer.wrap(reverseTargets),
+				DoubleBuffer.wrap(reverseWeights), waitingTimes);
+	}
+
+	/**
+	 * @param other
+	 *            another snapshot
+	 * @return true if both snapshots have the same nodes and the same edges (in the
+	 *         same order), no matter what their weights are
+	 */
+	boolean sameTopology(CompactGraph other) {
+		// the buffers are only read with absolute positions, so they always compare
+		// from the start
+		return offsets.equals(other.offsets) && targets.equals(other.targets);
+	}
+
+	/*
+	 * Read-only views for writing the snapshot to a file
+	 */
+
+	IntBuffer offsets() {
+		return offsets.asReadOnlyBuffer();
+	}
+
+	IntBuffer targets() {
+		return targets.asReadOnlyBuffer();
+	}
+
+	DoubleBuffer weights() {
+		return weights.asReadOnlyBuffer();
+	}
+
+	DoubleBuffer waitingTimes() {
+		return waitingTimes.asReadOnlyBuffer();
+	}
+}
@@ -0,0 +1,598 @@
+package lab;
+
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchies: a preprocessing which makes point-to-point queries
+ * on big maps cheap. The nodes are contracted one after another in the order of
+ * their importance. Contracting a node v removes it from the graph and for
+ * every pair u -> v -> w whose route over v is the only shortest one (no
+ * witness route avoiding v is as short) a shortcut u -> w is inserted. Every
+ * node gets its position in the order as rank.
+ *
+ * A query only has to go upwards: a search from the source over the edges to
+ * higher ranked nodes and a search from the destination over the reversed
+ * edges coming from higher ranked nodes meet at the highest node of the route.
+ * Nodes which are reached cheaper from above are not expanded (stall on
+ * demand). Every shortcut remembers the two edges it replaces, so the found
+ * route can be unpacked to the edges of the original graph.
+ *
+ * For the time metric the waiting time of a node is folded into the edges
+ * leaving it; the waiting time of the source is subtracted from the result
+ * again.
+ *
+ * @author thecr
+ *
+ */
+final class ContractionHierarchy {
+
+	/*
+	 * Number of nodes a witness search settles at most before it gives up, when
+	 * the node is contracted and when only its priority is computed
+	 */
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+	private static final int PRIORITY_SETTLE_LIMIT = 50;
+
+	// the snapshot the hierarchy was built for
+	private final CompactGraph graph;
+	private final boolean waiting;
+	// position of every node in the contraction order
+	private final int[] rank;
+	private final int shortcuts;
+
+	/*
+	 * All edges (the edges of the graph and the shortcuts). An edge of the graph
+	 * has -1 as first child, a shortcut the ids of the two edges it replaces
+	 */
+	private final int[] arcTarget;
+	private final int[] arcFirst;
+	private final int[] arcSecond;
+
+	/*
+	 * Upward graph: at every node the edges to higher ranked nodes. Downward
+	 * graph: at every node the edges coming from higher ranked nodes, stored with
+	 * the node they come from as target
+	 */
+	private final int[] upOffsets;
+	private final int[] upTargets;
+	private final double[] upWeights;
+	private final int[] upArcs;
+	private final int[] downOffsets;
+	private final int[] downTargets;
+	private final double[] downWeights;
+	private final int[] downArcs;
+
+	/**
+	 * Contracts the graph
+	 *
+	 * @param graph
+	 *            the snapshot
+	 * @param waiting
+	 *            true if the waiting times of the nodes have to be added (time
+	 *            metric)
+	 */
+	ContractionHierarchy(CompactGraph graph, boolean waiting) {
+		this.graph = graph;
+		this.waiting = waiting;
+
+		Builder builder = new Builder(graph, waiting);
+		builder.contractAll();
+		this.rank = builder.rank;
+		this.shortcuts = builder.arcCount - builder.originalCount;
+		this.arcTarget = Arrays.copyOf(builder.arcTarget, builder.arcCount);
+		this.arcFirst = Arrays.copyOf(builder.arcFirst, builder.arcCount);
+		this.arcSecond = Arrays.copyOf(builder.arcSecond, builder.arcCount);
+
+		int n = graph.size();
+		int arcs = builder.arcCount;
+		upOffsets = new int[n + 1];
+		downOffsets = new int[n + 1];
+		for (int a = 0; a < arcs; a++) {
+			int from = builder.arcSource[a];
+			int to = builder.arcTarget[a];
+			if (rank[from] < rank[to])
+				upOffsets[from + 1]++;
+			else
+				downOffsets[to + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			upOffsets[v + 1] += upOffsets[v];
+			downOffsets[v + 1] += downOffsets[v];
+		}
+		upTargets = new int[upOffsets[n]];
+		upWeights = new double[upOffsets[n]];
+		upArcs = new int[upOffsets[n]];
+		downTargets = new int[downOffsets[n]];
+		downWeights = new double[downOffsets[n]];
+		downArcs = new int[downOffsets[n]];
+		int[] nextUp = Arrays.copyOf(upOffsets, n);
+		int[] nextDown = Arrays.copyOf(downOffsets, n);
+		for (int a = 0; a < arcs; a++) {
+			int from = builder.arcSource[a];
+			int to = builder.arcTarget[a];
+			if (rank[from] < rank[to]) {
+				int position = nextUp[from]++;
+				upTargets[position] = to;
+				upWeights[position] = builder.arcWeight[a];
+				upArcs[position] = a;
+			} else {
+				int position = nextDown[to]++;
+				downTargets[position] = from;
+				downWeights[position] = builder.arcWeight[a];
+				downArcs[position] = a;
+			}
+		}
+	}
+
+	/**
+	 * @param snapshot
+	 *            the current snapshot of a graph
+	 * @return true if the hierarchy was built for exactly this snapshot
+	 */
+	boolean belongsTo(CompactGraph snapshot) {
+		return graph == snapshot;
+	}
+
+	/**
+	 * @return number of shortcuts the contraction inserted
+	 */
+	int shortcutCount() {
+		return shortcuts;
+	}
+
+	/**
+	 * Searches the best route from source to destination
+	 *
+	 * @param source
+	 *            id of the source node
+	 * @param destination
+	 *            id of the destination node
+	 * @param forward
+	 *            workspace for the upward search from the source
+	 * @param backward
+	 *            workspace for the upward search from the destination
+	 * @param type
+	 *            the kind of queue used as frontier
+	 * @param arity
+	 *            number of children per heap node (only used by the d-ary heap)
+	 * @return the route (unpacked to the nodes of the graph) or NO_PATH
+	 */
+	RouteResult search(int source, int destination, SearchWorkspace forward, SearchWorkspace backward,
+			Dijkstra.FrontierType type, int arity) {
+		if (source == destination)
+			return new RouteResult(RouteResult.FOUND, 0, new int[] { source });
+
+		int n = rank.length;
+		forward.begin(n, source);
+		backward.begin(n, destination);
+		Frontier forwardQueue = forward.frontier(type, arity);
+		Frontier backwardQueue = backward.frontier(type, arity);
+		forward.update(source, 0, -1);
+		forwardQueue.insertOrDecrease(source, 0);
+		backward.update(destination, 0, -1);
+		backwardQueue.insertOrDecrease(destination, 0);
+
+		double best = SearchWorkspace.UNREACHED;
+		int meeting = -1;
+		boolean forwardTurn = true;
+
+		while (true) {
+			// a search is done once its smallest key cannot improve the best route
+			boolean forwardActive = !forwardQueue.isEmpty() && forwardQueue.peekKey() < best;
+			boolean backwardActive = !backwardQueue.isEmpty() && backwardQueue.peekKey() < best;
+			if (!forwardActive && !backwardActive)
+				break;
+			if (!forwardActive)
+				forwardTurn = false;
+			else if (!backwardActive)
+				forwardTurn = true;
+
+			if (forwardTurn) {
+				int node = forwardQueue.poll();
+				double distance = forward.distance(node);
+				if (backward.reached(node) && distance + backward.distance(node) < best) {
+					best = distance + backward.distance(node);
+					meeting = node;
+				}
+				if (!stalled(node, distance, forward, downOffsets, downTargets, downWeights))
+					relax(node, distance, forward, forwardQueue, upOffsets, upTargets, upWeights);
+			} else {
+				int node = backwardQueue.poll();
+				double distance = backward.distance(node);
+				if (forward.reached(node) && distance + forward.distance(node) < best) {
+					best = distance + forward.distance(node);
+					meeting = node;
+				}
+				if (!stalled(node, distance, backward, upOffsets, upTargets, upWeights))
+					relax(node, distance, backward, backwardQueue, downOffsets, downTargets, downWeights);
+			}
+			forwardTurn = !forwardTurn;
+		}
+
+		if (meeting < 0)
+			return RouteResult.failed(Navigation.NO_PATH);
+		double value = waiting ? best - graph.waitingTime(source) : best;
+		return new RouteResult(RouteResult.FOUND, value, unpack(source, meeting, forward, backward));
+	}
+
+	/**
+	 * Stall on demand: the node is not expanded if a higher ranked node the search
+	 * has reached already leads to it cheaper (on the edges of the other
+	 * direction)
+	 */
+	private static boolean stalled(int node, double distance, SearchWorkspace workspace, int[] offsets,
+			int[] targets, double[] weights) {
+		for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+			int higher = targets[e];
+			if (workspace.reached(higher) && workspace.distance(higher) + weights[e] < distance)
+				return true;
+		}
+		return false;
+	}
+
+	private static void relax(int node, double distance, SearchWorkspace workspace, Frontier queue, int[] offsets,
+			int[] targets, double[] weights) {
+		for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+			int next = targets[e];
+			double total = distance + weights[e];
+			if (total < workspace.distance(next)) {
+				workspace.update(next, total, node);
+				queue.insertOrDecrease(next, total);
+			}
+		}
+	}
+
+	/**
+	 * Puts the route together from the fathers of both searches and replaces
+	 * every shortcut with the edges of the graph it stands for
+	 */
+	private int[] unpack(int source, int meeting, SearchWorkspace forward, SearchWorkspace backward) {
+		// edges of the route in the hierarchy, from the source to the destination
+		int hops = 0;
+		for (int n = meeting; forward.predecessor(n) >= 0; n = forward.predecessor(n)) {
+			hops++;
+		}
+		for (int n = meeting; backward.predecessor(n) >= 0; n = backward.predecessor(n)) {
+			hops++;
+		}
+		int[] arcs = new int[hops];
+		int position = 0;
+		for (int n = meeting; forward.predecessor(n) >= 0; n = forward.predecessor(n)) {
+			arcs[position++] = cheapestArc(forward.predecessor(n), n, upOffsets, upTargets, upWeights, upArcs);
+		}
+		reverse(arcs, position);
+		for (int n = meeting; backward.predecessor(n) >= 0; n = backward.predecessor(n)) {
+			arcs[position++] = cheapestArc(backward.predecessor(n), n, downOffsets, downTargets, downWeights,
+					downArcs);
+		}
+
+		// every shortcut is replaced by its two edges (depth first, first edge first)
+		IntList path = new IntList();
+		path.add(source);
+		IntList stack = new IntList();
+		for (int arc : arcs) {
+			stack.add(arc);
+			while (stack.size > 0) {
+				int a = stack.values[--stack.size];
+				if (arcFirst[a] < 0) {
+					path.add(arcTarget[a]);
+				} else {
+					stack.add(arcSecond[a]);
+					stack.add(arcFirst[a]);
+				}
+			}
+		}
+		return Arrays.copyOf(path.values, path.size);
+	}
+
+	/**
+	 * @return id of the cheapest edge stored at node which leads to target
+	 */
+	private static int cheapestArc(int node, int target, int[] offsets, int[] targets, double[] weights,
+			int[] arcs) {
+		int best = -1;
+		for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+			if (targets[e] == target && (best < 0 || weights[e] < weights[best]))
+				best = e;
+		}
+		return arcs[best];
+	}
+
+	private static void reverse(int[] values, int length) {
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			int swap = values[i];
+			values[i] = values[j];
+			values[j] = swap;
+		}
+	}
+
+	/**
+	 * Growable list of ints
+	 */
+	private static final class IntList {
+		int[] values = new int[8];
+		int size;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+	}
+
+	/**
+	 * The contraction itself. Works on adjacency lists (edge ids) of the remaining
+	 * graph, contracted nodes are skipped
+	 */
+	private static final class Builder {
+		private final int n;
+
+		int arcCount;
+		// number of edges taken over from the graph, the shortcuts come after them
+		int originalCount;
+		int[] arcSource;
+		int[] arcTarget;
+		double[] arcWeight;
+		int[] arcFirst;
+		int[] arcSecond;
+
+		private final IntList[] outgoing;
+		private final IntList[] incoming;
+
+		final int[] rank;
+		private final boolean[] contracted;
+		// number of contracted neighbours of every node
+		private final int[] deleted;
+
+		private final SearchWorkspace witness = new SearchWorkspace();
+		// target[v] == round marks the nodes the current witness search looks for
+		private final int[] target;
+		private int round;
+
+		Builder(CompactGraph graph, boolean waiting) {
+			n = graph.size();
+			int m = graph.edgeCount();
+			arcSource = new int[Math.max(16, m)];
+			arcTarget = new int[arcSource.length];
+			arcWeight = new double[arcSource.length];
+			arcFirst = new int[arcSource.length];
+			arcSecond = new int[arcSource.length];
+
+			outgoing = new IntList[n];
+			incoming = new IntList[n];
+			for (int v = 0; v < n; v++) {
+				outgoing[v] = new IntList();
+				incoming[v] = new IntList();
+			}
+			rank = new int[n];
+			contracted = new boolean[n];
+			deleted = new int[n];
+			target = new int[n];
+
+			// self loops are never part of a shortest route and are left out
+			for (int u = 0; u < n; u++) {
+				double wait = waiting ? graph.waitingTime(u) : 0;
+				for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+					if (graph.target(e) != u)
+						addArc(u, graph.target(e), graph.weight(e) + wait, -1, -1);
+				}
+			}
+			originalCount = arcCount;
+		}
+
+		private int addArc(int from, int to, double weight, int first, int second) {
+			if (arcCount == arcSource.length) {
+				int grown = arcCount * 2;
+				arcSource = Arrays.copyOf(arcSource, grown);
+				arcTarget = Arrays.copyOf(arcTarget, grown);
+				arcWeight = Arrays.copyOf(arcWeight, grown);
+				arcFirst = Arrays.copyOf(arcFirst, grown);
+				arcSecond = Arrays.copyOf(arcSecond, grown);
+			}
+			int arc = arcCount++;
+			arcSource[arc] = from;
+			arcTarget[arc] = to;
+			arcWeight[arc] = weight;
+			arcFirst[arc] = first;
+			arcSecond[arc] = second;
+			outgoing[from].add(arc);
+			incoming[to].add(arc);
+			return arc;
+		}
+
+		/**
+		 * Contracts the nodes in the order of their priority. The priorities are
+		 * updated lazily: the priority of the node coming out of the queue is
+		 * computed again, and if it went up the node is put back until the
+		 * smallest one is current
+		 */
+		void contractAll() {
+			IndexedHeap queue = new IndexedHeap(n, 4);
+			for (int v = 0; v < n; v++) {
+				queue.insertOrDecrease(v, priority(v));
+			}
+
+			int next = 0;
+			while (!queue.isEmpty()) {
+				int node = queue.poll();
+				double priority = priority(node);
+				if (!queue.isEmpty() && priority > queue.peekKey()) {
+					queue.insertOrDecrease(node, priority);
+					continue;
+				}
+
+				contract(node, true);
+				contracted[node] = true;
+				rank[node] = next++;
+
+				// the edges of the node are left out of the lists of its neighbours, so
+				// the later witness searches and priorities do not scan them any more
+				for (int i = 0; i < outgoing[node].size; i++) {
+					int arc = outgoing[node].values[i];
+					removeAllArcs(incoming[arcTarget[arc]], node, arcSource);
+				}
+				for (int i = 0; i < incoming[node].size; i++) {
+					int arc = incoming[node].values[i];
+					removeAllArcs(outgoing[arcSource[arc]], node, arcTarget);
+				}
+
+				// the neighbours lost a neighbour (their priority is computed again when
+				// they come out of the queue)
+				for (int i = 0; i < outgoing[node].size; i++) {
+					deleted[arcTarget[outgoing[node].values[i]]]++;
+				}
+				for (int i = 0; i < incoming[node].size; i++) {
+					deleted[arcSource[incoming[node].values[i]]]++;
+				}
+			}
+		}
+
+		/**
+		 * Edge difference (shortcuts needed minus edges removed) plus the number of
+		 * contracted neighbours, which spreads the contraction over the graph
+		 */
+		private double priority(int node) {
+			int removed = 0;
+			for (int i = 0; i < outgoing[node].size; i++) {
+				if (!contracted[arcTarget[outgoing[node].values[i]]])
+					removed++;
+			}
+			for (int i = 0; i < incoming[node].size; i++) {
+				if (!contracted[arcSource[incoming[node].values[i]]])
+					removed++;
+			}
+			return contract(node, false) - removed + deleted[node];
+		}
+
+		/**
+		 * Finds (and inserts if add is true) the shortcuts contracting the node
+		 * needs
+		 *
+		 * @return number of shortcuts
+		 */
+		private int contract(int node, boolean add) {
+			int shortcuts = 0;
+			IntList in = incoming[node];
+			IntList out = outgoing[node];
+			for (int i = 0; i < in.size; i++) {
+				int first = in.values[i];
+				int from = arcSource[first];
+				if (contracted[from])
+					continue;
+
+				// the witness search only has to find the nodes behind the node
+				double limit = 0;
+				int targets = 0;
+				round++;
+				for (int j = 0; j < out.size; j++) {
+					int to = arcTarget[out.values[j]];
+					if (contracted[to] || to == from)
+						continue;
+					limit = Math.max(limit, arcWeight[first] + arcWeight[out.values[j]]);
+					if (target[to] != round) {
+						target[to] = round;
+						targets++;
+					}
+				}
+				if (targets == 0)
+					continue;
+				witnessSearch(from, node, limit, targets, add ? WITNESS_SETTLE_LIMIT : PRIORITY_SETTLE_LIMIT);
+
+				for (int j = 0; j < out.size; j++) {
+					int second = out.values[j];
+					int to = arcTarget[second];
+					if (contracted[to] || to == from)
+						continue;
+					double via = arcWeight[first] + arcWeight[second];
+					if (witness.distance(to) <= via || hasArc(from, to, via))
+						continue;
+					shortcuts++;
+					if (add) {
+						// more expensive parallel edges are not needed any more
+						removeArcs(outgoing[from], -1, to, arcTarget, via);
+						removeArcs(incoming[to], from, -1, arcSource, via);
+						addArc(from, to, via, first, second);
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		/**
+		 * Removes the edges of the list whose other end (looked up in ends) is the
+		 * given node and which are more expensive than weight. Only the adjacency
+		 * list changes, the edge itself stays in the hierarchy
+		 */
+		private void removeArcs(IntList list, int source, int target, int[] ends, double weight) {
+			int node = source >= 0 ? source : target;
+			int kept = 0;
+			for (int i = 0; i < list.size; i++) {
+				int arc = list.values[i];
+				if (ends[arc] != node || arcWeight[arc] <= weight)
+					list.values[kept++] = arc;
+			}
+			list.size = kept;
+		}
+
+		/**
+		 * Removes all edges of the list whose other end (looked up in ends) is the
+		 * given node. Only the adjacency list changes, the edge itself stays in the
+		 * hierarchy
+		 */
+		private void removeAllArcs(IntList list, int node, int[] ends) {
+			int kept = 0;
+			for (int i = 0; i < list.size; i++) {
+				int arc = list.values[i];
+				if (ends[arc] != node)
+					list.values[kept++] = arc;
+			}
+			list.size = kept;
+		}
+
+		/**
+		 * @return true if there is an edge from -> to which is at most as expensive
+		 *         as weight
+		 */
+		private boolean hasArc(int from, int to, double weight) {
+			IntList out = outgoing[from];
+			for (int i = 0; i < out.size; i++) {
+				if (arcTarget[out.values[i]] == to && arcWeight[out.values[i]] <= weight)
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Limited search from source on the remaining graph without the node which
+		 * is contracted. Stops once all targets are settled, at the cost limit or
+		 * after settleLimit nodes; nodes it did not reach count as not reachable,
+		 * which only costs an unneeded shortcut
+		 */
+		private void witnessSearch(int source, int without, double limit, int targets, int settleLimit) {
+			witness.begin(n, source);
+			Frontier queue = witness.frontier(Dijkstra.FrontierType.D_ARY_HEAP, 4);
+			witness.update(source, 0, -1);
+			queue.insertOrDecrease(source, 0);
+
+			int settled = 0;
+			while (!queue.isEmpty() && settled++ < settleLimit) {
+				int node = queue.poll();
+				double distance = witness.distance(node);
+				if (distance > limit || (target[node] == round && --targets == 0))
+					break;
+				IntList out = outgoing[node];
+				for (int i = 0; i < out.size; i++) {
+					int arc = out.values[i];
+					int next = arcTarget[arc];
+					if (contracted[next] || next == without)
+						continue;
+					double total = distance + arcWeight[arc];
+					if (total < witness.distance(next)) {
+						witness.update(next, total, node);
+						queue.insertOrDecrease(next, total);
+					}
+				}
+			}
+		}
+	}
+}
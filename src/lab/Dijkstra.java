@@ -1,9 +1,16 @@
 package lab;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * 
@@ -16,16 +23,222 @@ public class Dijkstra<T extends Comparable<T>> {
 
 	private ArrayList<Node> nodes;
 	private ArrayList<Edge> edges;
-	private static List<String> waitingTime = new ArrayList<String>();
 
 	/*
-	 * State of the node. Can either be white (= not visited), grey (= visited) or
-	 * black (= visited and completed)
+	 * Node registry: maps every node name to its dense integer id. Ids are handed
+	 * out in insertion order, so the id of a node is also its position in the
+	 * nodes list. The lookups of the queries run without the lock while nodes are
+	 * added, so it is a ConcurrentHashMap
 	 */
-	public enum State {
-		WHITE, GREY, BLACK
+	private ConcurrentHashMap<T, Integer> index;
+
+	/*
+	 * The nodes by id for the lookups without the lock (findNode, getName). A node
+	 * is stored before the array is written again (a bigger copy once it is full)
+	 * and before its id goes into the index, so whoever got an id from the index
+	 * or from a snapshot finds the node in the array
+	 */
+	private volatile Object[] nodesById;
+
+	/*
+	 * Edge registry: maps the (from id, to id) pair of every edge (packed into one
+	 * long by edgeKey) to the edge itself
+	 */
+	private HashMap<Long, Edge> edgeIndex;
+
+	/*
+	 * Waiting time (in minutes) of every node, indexed by node id. Only the time
+	 * search uses it
+	 */
+	private double[] waitingTimes;
+
+	/*
+	 * Frozen CSR snapshot of nodes and edges the searches run on. It is built
+	 * lazily by freeze() and dropped whenever an edge is added or changed. The
+	 * snapshot itself is immutable, so any number of threads can search it at the
+	 * same time
+	 */
+	private volatile CompactGraph snapshot;
+
+	/*
+	 * Number of changes of the graph so far. Every new node or edge and every
+	 * changed weight or waiting time increases it, so results which were computed
+	 * for an older generation (like the ones kept in a RouteCache) can be told
+	 * apart from current ones. It is increased when the change is complete,
+	 * including the repair of the hot trees
+	 */
+	private volatile long generation;
+
+	/*
+	 * Names of the nodes of a graph which was opened from a snapshot file. As long
+	 * as this is set, the graph only consists of the snapshot and the names (no
+	 * Node and Edge objects): queries run directly on it, the first change of the
+	 * graph turns it into Node and Edge objects (thaw)
+	 */
+	private volatile NodeNames<T> loadedNames;
+
+	/*
+	 * Queue used as frontier of the searches. D_ARY_HEAP is the indexed d-ary heap
+	 * with real decrease-key, PRIORITY_QUEUE is java.util.PriorityQueue (with lazy
+	 * deletion of outdated entries)
+	 */
+	public enum FrontierType {
+		D_ARY_HEAP, PRIORITY_QUEUE
+	};
+
+	private volatile FrontierType frontierType = FrontierType.D_ARY_HEAP;
+	private volatile int heapArity = 4;
+
+	/*
+	 * Every thread gets its own search workspace (distances, fathers and frontier
+	 * of the last search), which is reused by all of its searches on this graph
+	 */
+	private final ThreadLocal<SearchWorkspace> workspaces = ThreadLocal.withInitial(SearchWorkspace::new);
+	// second workspace per thread for the backward half of bidirectional searches
+	private final ThreadLocal<SearchWorkspace> backwardWorkspaces = ThreadLocal.withInitial(SearchWorkspace::new);
+
+	/*
+	 * Algorithm used for a point-to-point query. DIJKSTRA searches from the source
+	 * until the whole reachable graph is done, BIDIRECTIONAL searches from both
+	 * ends at the same time and stops where they meet, ALT is the A* search
+	 * directed by the landmark tables (see prepareLengthLandmarks),
+	 * CONTRACTION_HIERARCHY the upward search on the contracted graph (see
+	 * prepareLengthHierarchy), ORACLE a lookup in the all-pairs table (see
+	 * prepareLengthOracle)
+	 */
+	public enum Algorithm {
+		DIJKSTRA, BIDIRECTIONAL, ALT, CONTRACTION_HIERARCHY, ORACLE
 	};
 
+	/*
+	 * How the landmarks of the ALT search are picked. FARTHEST takes the node
+	 * farthest away from the landmarks so far, AVOID the leaf of the part of a
+	 * shortest path tree the landmarks so far bound worst
+	 */
+	public enum LandmarkSelection {
+		FARTHEST, AVOID
+	};
+
+	/*
+	 * Landmark tables of the current snapshot for the distance and for the time
+	 * search (null as long as none were prepared)
+	 */
+	private volatile Landmarks lengthLandmarks;
+	private volatile Landmarks timeLandmarks;
+
+	/*
+	 * Contraction hierarchies of the current snapshot for the distance and for the
+	 * time search (null as long as none were prepared)
+	 */
+	private volatile ContractionHierarchy lengthHierarchy;
+	private volatile ContractionHierarchy timeHierarchy;
+
+	/*
+	 * All-pairs tables of the current snapshot for the distance and for the time
+	 * search (null as long as none were prepared)
+	 */
+	private volatile DistanceOracle lengthOracle;
+	private volatile DistanceOracle timeOracle;
+
+	/*
+	 * Shortest path trees of the hot sources for the distance and for the time
+	 * search, by id of the source. Unlike the tables above they are not dropped
+	 * when the graph changes but repaired (see addHotLengthSource)
+	 */
+	private final Map<Integer, DynamicTree> lengthTrees = new ConcurrentHashMap<>();
+	private final Map<Integer, DynamicTree> timeTrees = new ConcurrentHashMap<>();
+
+	/*
+	 * The Node and Edge objects by id, as the trees of the hot sources see the
+	 * graph. Only used while the graph is changed (so it is thawed)
+	 */
+	private final DynamicTree.Graph adjacency = new DynamicTree.Graph() {
+		@Override
+		public int size() {
+			return nodes.size();
+		}
+
+		@Override
+		public int outDegree(int node) {
+			return nodes.get(node).nodesOutgoing.size();
+		}
+
+		@Override
+		public int outNeighbour(int node, int i) {
+			return nodes.get(node).nodesOutgoing.get(i).id;
+		}
+
+		@Override
+		public int inDegree(int node) {
+			return nodes.get(node).nodesIncoming.size();
+		}
+
+		@Override
+		public int inNeighbour(int node, int i) {
+			return nodes.get(node).nodesIncoming.get(i).id;
+		}
+
+		@Override
+		public double weight(int from, int to) {
+			return edgeIndex.get(edgeKey(from, to)).weight;
+		}
+
+		@Override
+		public double waitingTime(int node) {
+			return waitingTimes[node];
+		}
+	};
+
+	/**
+	 * A snapshot as the trees of the hot sources see the graph: out arcs from the
+	 * snapshot, in arcs from its reverse graph. Used while the graph is not
+	 * thawed (it was opened from a snapshot file or copied)
+	 */
+	private static final class SnapshotAdjacency implements DynamicTree.Graph {
+		private final CompactGraph graph;
+		private final CompactGraph reverse;
+
+		SnapshotAdjacency(CompactGraph graph) {
+			this.graph = graph;
+			this.reverse = graph.reverse();
+		}
+
+		@Override
+		public int size() {
+			return graph.size();
+		}
+
+		@Override
+		public int outDegree(int node) {
+			return graph.lastEdge(node) - graph.firstEdge(node);
+		}
+
+		@Override
+		public int outNeighbour(int node, int i) {
+			return graph.target(graph.firstEdge(node) + i);
+		}
+
+		@Override
+		public int inDegree(int node) {
+			return reverse.lastEdge(node) - reverse.firstEdge(node);
+		}
+
+		@Override
+		public int inNeighbour(int node, int i) {
+			return reverse.target(reverse.firstEdge(node) + i);
+		}
+
+		@Override
+		public double weight(int from, int to) {
+			return graph.weight(graph.findEdge(from, to));
+		}
+
+		@Override
+		public double waitingTime(int node) {
+			return graph.waitingTime(node);
+		}
+	}
+
 	/**
 	 * Describes the Edge. Connects 2 Nodes (from and to) and has a weight which in
 	 * our case either can be the distance to the to node or the time it takes in
@@ -54,17 +267,27 @@ public class Dijkstra<T extends Comparable<T>> {
 		 */
 		public Edge(T fromNode, T toNode, double weight) {
 
-			from = findNode(fromNode);
-			if (from == null) {
-				from = new Node(fromNode);
-				nodes.add(from);
-			}
+			from = registerNode(fromNode);
+			to = registerNode(toNode);
+			this.weight = weight;
 
-			to = findNode(toNode);
-			if (to == null) {
-				to = new Node(toNode);
-				nodes.add(to);
-			}
+			from.addOutgoing(to);
+			to.addIncoming(from);
+		}
+
+		/**
+		 * Constructor for nodes which exist already
+		 * 
+		 * @param from
+		 *            the Node from which the Edge starts
+		 * @param to
+		 *            the Node to which the Edge goes
+		 * @param weight
+		 *            the weight of the Edge (can either be in km or in minutes)
+		 */
+		Edge(Node from, Node to, double weight) {
+			this.from = from;
+			this.to = to;
 			this.weight = weight;
 
 			from.addOutgoing(to);
@@ -74,41 +297,34 @@ public class Dijkstra<T extends Comparable<T>> {
 
 	/**
 	 * Describes the Node. My Node approach is a bit "sloppy" as it is basically
-	 * only two lists of nodes holding all the outgoing and incoming nodes. It also
-	 * uses the State to describe the status of the node white (= not visited), grey
-	 * (= visited) or black (= visited and completed)
+	 * only two lists of nodes holding all the outgoing and incoming nodes. It holds
+	 * no per-query state (distances and fathers live in the SearchWorkspace of the
+	 * searching thread)
 	 * 
 	 * @author thecr
 	 *
 	 */
-	class Node implements Comparable<Node> {
+	class Node {
 
-		Node father = null;
 		T name;
-		double minDistance = Double.MAX_VALUE;
+		// dense id of the node, equals its position in the nodes list
+		final int id;
 
 		List<Node> nodesIncoming;
 		List<Node> nodesOutgoing;
-		State state;
 
 		/**
 		 * @param value
 		 *            name of the node
+		 * @param id
+		 *            dense id of the node (its position in the nodes list)
 		 */
 
-		public Node(T value) {
+		public Node(T value, int id) {
 			this.name = value;
+			this.id = id;
 			nodesIncoming = new ArrayList<>();
 			nodesOutgoing = new ArrayList<>();
-			state = State.WHITE;
-		}
-
-		/**
-		 * this is very necessary to make the nodes comparable to each other. This is
-		 * the whole essence of our priorityQueue
-		 */
-		public int compareTo(Node other) {
-			return Double.compare(minDistance, other.minDistance);
 		}
 
 		/**
@@ -136,7 +352,244 @@ public class Dijkstra<T extends Comparable<T>> {
 	 */
 	public Dijkstra() {
 		nodes = new ArrayList<>();
+		nodesById = new Object[16];
 		edges = new ArrayList<>();
+		index = new ConcurrentHashMap<>();
+		edgeIndex = new HashMap<>();
+		waitingTimes = new double[16];
+	}
+
+	/**
+	 * Constructor for a graph which only consists of a frozen snapshot (for
+	 * example one opened from a snapshot file) and the names of its nodes. Nothing
+	 * is copied, the Node and Edge objects are only created if the graph is
+	 * changed
+	 * 
+	 * @param graph
+	 *            the snapshot
+	 * @param names
+	 *            the names of the nodes of the snapshot
+	 */
+	Dijkstra(CompactGraph graph, NodeNames<T> names) {
+		this();
+		this.snapshot = graph;
+		this.loadedNames = names;
+	}
+
+	/**
+	 * Copies the graph: the copy starts on the current snapshot (which is
+	 * immutable, so nothing but the node names is copied) and can be changed
+	 * without changing this graph. Frontier, prepared tables of the snapshot and
+	 * hot sources are taken over, the generation goes on from the one of this
+	 * graph, so results remembered for this graph are never taken for results of
+	 * the changed copy
+	 * 
+	 * @return the copy
+	 */
+	synchronized Dijkstra<T> copy() {
+		CompactGraph graph = freeze();
+		NodeNames<T> names = loadedNames;
+		if (names == null) {
+			ArrayList<T> copiedNames = new ArrayList<T>(nodes.size());
+			for (Node node : nodes) {
+				copiedNames.add(node.name);
+			}
+			names = new CopiedNames<T>(copiedNames, new HashMap<T, Integer>(index));
+		}
+		Dijkstra<T> copy = new Dijkstra<T>(graph, names);
+		copy.generation = generation;
+		copy.frontierType = frontierType;
+		copy.heapArity = heapArity;
+		// the tables belong to the snapshot, which the copy shares
+		copy.lengthLandmarks = lengthLandmarks;
+		copy.timeLandmarks = timeLandmarks;
+		copy.lengthHierarchy = lengthHierarchy;
+		copy.timeHierarchy = timeHierarchy;
+		copy.lengthOracle = lengthOracle;
+		copy.timeOracle = timeOracle;
+		for (int source : lengthTrees.keySet()) {
+			copy.addHotSource(copy.lengthTrees, getName(source), false);
+		}
+		for (int source : timeTrees.keySet()) {
+			copy.addHotSource(copy.timeTrees, getName(source), true);
+		}
+		return copy;
+	}
+
+	/**
+	 * Names of the nodes of a graph at the time it was copied
+	 */
+	private static final class CopiedNames<T> implements NodeNames<T> {
+		private final ArrayList<T> names;
+		private final HashMap<T, Integer> ids;
+
+		CopiedNames(ArrayList<T> names, HashMap<T, Integer> ids) {
+			this.names = names;
+			this.ids = ids;
+		}
+
+		@Override
+		public int size() {
+			return names.size();
+		}
+
+		@Override
+		public int idOf(T name) {
+			Integer id = ids.get(name);
+			return id == null ? -1 : id;
+		}
+
+		@Override
+		public T nameOf(int id) {
+			return names.get(id);
+		}
+	}
+
+	/**
+	 * Creates the Node and Edge objects of a graph which only consists of a
+	 * snapshot, so it can be changed. Queries may run at the same time: they look
+	 * at loadedNames first, so the registries are filled completely before
+	 * loadedNames is cleared, which publishes them
+	 */
+	private synchronized void thaw() {
+		NodeNames<T> names = loadedNames;
+		if (names == null)
+			return;
+		CompactGraph graph = snapshot;
+
+		int n = names.size();
+		ArrayList<Node> thawedNodes = new ArrayList<>(n);
+		ConcurrentHashMap<T, Integer> thawedIndex = new ConcurrentHashMap<>(Math.max(16, n));
+		double[] thawedWaitingTimes = new double[Math.max(16, n)];
+		for (int id = 0; id < n; id++) {
+			Node node = new Node(names.nameOf(id), id);
+			thawedNodes.add(node);
+			thawedIndex.put(node.name, id);
+			thawedWaitingTimes[id] = graph.waitingTime(id);
+		}
+		ArrayList<Edge> thawedEdges = new ArrayList<>(graph.edgeCount());
+		HashMap<Long, Edge> thawedEdgeIndex = new HashMap<>();
+		for (int u = 0; u < graph.size(); u++) {
+			for (int e = graph.firstEdge(u); e < graph.lastEdge(u); e++) {
+				Edge edge = new Edge(thawedNodes.get(u), thawedNodes.get(graph.target(e)), graph.weight(e));
+				thawedEdges.add(edge);
+				thawedEdgeIndex.put(edgeKey(u, graph.target(e)), edge);
+			}
+		}
+
+		nodes = thawedNodes;
+		nodesById = thawedNodes.toArray(new Object[Math.max(16, n)]);
+		index = thawedIndex;
+		waitingTimes = thawedWaitingTimes;
+		edges = thawedEdges;
+		edgeIndex = thawedEdgeIndex;
+		// the snapshot still describes exactly this graph, the volatile write
+		// publishes everything above
+		loadedNames = null;
+	}
+
+	/**
+	 * Packs the ids of both end nodes of an edge into one key for the edge index
+	 * 
+	 * @param from
+	 *            id of the node from which the edge starts
+	 * @param to
+	 *            id of the node to which the edge goes
+	 * @return the key of the edge in the edge index
+	 */
+	private static long edgeKey(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Looks the node up in the registry and creates it (with the next free id) if
+	 * it is not existing yet
+	 * 
+	 * @param name
+	 *            name of the node
+	 * @return the node belonging to the name
+	 */
+	private Node registerNode(T name) {
+		Node node = findNode(name);
+		if (node == null) {
+			node = new Node(name, nodes.size());
+			nodes.add(node);
+			Object[] byId = nodesById;
+			if (node.id == byId.length)
+				byId = Arrays.copyOf(byId, byId.length * 2);
+			byId[node.id] = node;
+			nodesById = byId;
+			index.put(name, node.id);
+			if (node.id == waitingTimes.length)
+				waitingTimes = Arrays.copyOf(waitingTimes, waitingTimes.length * 2);
+			snapshot = null;
+			generation++;
+		}
+		return node;
+	}
+
+	/**
+	 * @return the number of changes of the graph so far. It only ever grows, so a
+	 *         result remembered together with the generation is still valid as
+	 *         long as the generation is the same
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Adds a node without any edges (nothing happens if it is already existing)
+	 * 
+	 * @param name
+	 *            name of the node
+	 */
+	public synchronized void addNode(T name) {
+		thaw();
+		registerNode(name);
+	}
+
+	/**
+	 * Sets the time one has to wait when travelling through the node. The node is
+	 * added if it is not existing yet
+	 * 
+	 * @param name
+	 *            name of the node
+	 * @param minutes
+	 *            the waiting time in minutes
+	 */
+	public synchronized void setWaitingTime(T name, double minutes) {
+		thaw();
+		Node node = registerNode(name);
+		double old = waitingTimes[node.id];
+		waitingTimes[node.id] = minutes;
+		snapshot = null;
+
+		// the waiting time is part of every arc leaving the node (time search only)
+		if (old != minutes && !timeTrees.isEmpty()) {
+			int count = node.nodesOutgoing.size();
+			int[] tails = new int[count];
+			int[] heads = new int[count];
+			for (int i = 0; i < count; i++) {
+				tails[i] = node.id;
+				heads[i] = node.nodesOutgoing.get(i).id;
+			}
+			repairTrees(timeTrees, tails, heads, count);
+		}
+		// only now, so whoever reads the new generation gets repaired trees as well
+		generation++;
+	}
+
+	/**
+	 * @param name
+	 *            name of the node
+	 * @return the waiting time of the node in minutes (0 if the node has none or is
+	 *         not on the graph)
+	 */
+	public double getWaitingTime(T name) {
+		int id = findNodeId(name);
+		if (id < 0)
+			return 0;
+		return loadedNames != null ? snapshot.waitingTime(id) : waitingTimes[id];
 	}
 
 	/**
@@ -152,47 +605,435 @@ public class Dijkstra<T extends Comparable<T>> {
 	 *            weight of the edge, in our case either the length in km or the
 	 *            time it takes to traverse the edge, represented as double
 	 */
-	public void addEdge(T from, T to, double d) {
+	public synchronized void addEdge(T from, T to, double d) {
+		thaw();
 		Edge temp = findEdge(from, to);
+		snapshot = null;
 		if (temp != null) {
-			temp.weight = (int) d;
+			temp.weight = d;
 		} else {
-			Edge e = new Edge(from, to, d);
-			edges.add(e);
+			temp = new Edge(from, to, d);
+			edges.add(temp);
+			edgeIndex.put(edgeKey(temp.from.id, temp.to.id), temp);
+		}
+
+		if (!lengthTrees.isEmpty() || !timeTrees.isEmpty()) {
+			int[] tails = { temp.from.id };
+			int[] heads = { temp.to.id };
+			repairTrees(lengthTrees, tails, heads, 1);
+			repairTrees(timeTrees, tails, heads, 1);
 		}
+		// only now, so whoever reads the new generation gets repaired trees as well
+		generation++;
+	}
+
+	/**
+	 * Changes the weights of many existing edges at once. Every pair is looked up
+	 * in the current snapshot once, then a new snapshot with all new weights is
+	 * published with a single write. Queries which are already running keep
+	 * searching the snapshot they started on, so they see either all the old or
+	 * all the new weights, never a mix. A graph opened from a snapshot file (or
+	 * copied) stays a snapshot, the trees of the hot sources are repaired on the
+	 * new snapshot directly
+	 *
+	 * @param from
+	 *            start nodes of the edges
+	 * @param to
+	 *            end nodes of the edges
+	 * @param weights
+	 *            the new weights
+	 * @return the number of edges which were changed (pairs without an edge are
+	 *         skipped)
+	 */
+	public synchronized int updateWeights(T[] from, T[] to, double[] weights) {
+		if (from.length != to.length || from.length != weights.length)
+			throw new IllegalArgumentException("from, to and weights must have the same length");
+
+		CompactGraph current = freeze();
+		double[] changed = current.copyWeights();
+		int[] tails = new int[from.length];
+		int[] heads = new int[from.length];
+		int count = 0;
+		for (int i = 0; i < from.length; i++) {
+			int u = findNodeId(from[i]);
+			int v = findNodeId(to[i]);
+			int e = u < 0 || v < 0 ? -1 : current.findEdge(u, v);
+			if (e < 0)
+				continue;
+			changed[e] = weights[i];
+			if (loadedNames == null)
+				edgeIndex.get(edgeKey(u, v)).weight = weights[i];
+			tails[count] = u;
+			heads[count] = v;
+			count++;
+		}
+		if (count == 0)
+			return 0;
+
+		CompactGraph updated = current.withWeights(changed);
+		snapshot = updated;
+		if (!lengthTrees.isEmpty() || !timeTrees.isEmpty()) {
+			DynamicTree.Graph graph = loadedNames == null ? adjacency : new SnapshotAdjacency(updated);
+			repairTrees(lengthTrees, graph, tails, heads, count);
+			repairTrees(timeTrees, graph, tails, heads, count);
+		}
+		// only now, so whoever reads the new generation gets repaired trees as well
+		generation++;
+		return count;
+	}
+
+	/**
+	 * Repairs the trees of the hot sources after arcs changed
+	 * 
+	 * @param trees
+	 *            the trees of one metric
+	 * @param tails
+	 *            start nodes of the changed arcs
+	 * @param heads
+	 *            end nodes of the changed arcs
+	 * @param count
+	 *            number of changed arcs
+	 */
+	private void repairTrees(Map<Integer, DynamicTree> trees, int[] tails, int[] heads, int count) {
+		repairTrees(trees, adjacency, tails, heads, count);
+	}
+
+	/*
+	 * The same on the given view of the graph
+	 */
+	private void repairTrees(Map<Integer, DynamicTree> trees, DynamicTree.Graph graph, int[] tails, int[] heads,
+			int count) {
+		for (DynamicTree tree : trees.values()) {
+			tree.repair(graph, tails, heads, count);
+		}
+	}
+
+	/**
+	 * Makes the node a hot source of getRouteLength: its shortest path tree is
+	 * searched once and from then on repaired whenever edges change, only as far
+	 * as the change reaches. Routes from the source are read out of the tree,
+	 * whatever algorithm is asked for
+	 * 
+	 * @param source
+	 *            the node
+	 * @return false if the node is not on the graph
+	 */
+	public synchronized boolean addHotLengthSource(T source) {
+		return addHotSource(lengthTrees, source, false);
+	}
+
+	/**
+	 * Makes the node a hot source of getRouteTime (see addHotLengthSource)
+	 * 
+	 * @param source
+	 *            the node
+	 * @return false if the node is not on the graph
+	 */
+	public synchronized boolean addHotTimeSource(T source) {
+		return addHotSource(timeTrees, source, true);
+	}
+
+	private boolean addHotSource(Map<Integer, DynamicTree> trees, T name, boolean waiting) {
+		int id = findNodeId(name);
+		if (id < 0)
+			return false;
+		CompactGraph graph = freeze();
+		trees.put(id, new DynamicTree(id, waiting, search(graph, id, null, waiting), graph.size()));
+		return true;
+	}
+
+	/**
+	 * Drops the trees of the node for both searches
+	 * 
+	 * @param source
+	 *            the node
+	 */
+	public synchronized void removeHotSource(T source) {
+		int id = findNodeId(source);
+		lengthTrees.remove(id);
+		timeTrees.remove(id);
+	}
+
+	/**
+	 * Selects the queue both the distance and the time search use as frontier
+	 * 
+	 * @param type
+	 *            the kind of queue
+	 * @param arity
+	 *            number of children per heap node (only used by D_ARY_HEAP, at
+	 *            least 2)
+	 */
+	public void setFrontier(FrontierType type, int arity) {
+		if (arity < 2)
+			throw new IllegalArgumentException("arity has to be at least 2: " + arity);
+		this.frontierType = type;
+		this.heapArity = arity;
+	}
+
+	/**
+	 * Picks landmarks on the current graph and computes their distance tables for
+	 * the ALT search of getRouteLength. The tables are dropped as soon as the
+	 * graph changes
+	 * 
+	 * @param count
+	 *            number of landmarks
+	 * @param selection
+	 *            how the landmarks are picked
+	 */
+	public void prepareLengthLandmarks(int count, LandmarkSelection selection) {
+		lengthLandmarks = Landmarks.compute(freeze(), false, count, selection);
+	}
+
+	/**
+	 * Picks landmarks on the current graph and computes their time tables (the
+	 * waiting times of the nodes included) for the ALT search of getRouteTime.
+	 * The tables are dropped as soon as the graph changes
+	 * 
+	 * @param count
+	 *            number of landmarks
+	 * @param selection
+	 *            how the landmarks are picked
+	 */
+	public void prepareTimeLandmarks(int count, LandmarkSelection selection) {
+		timeLandmarks = Landmarks.compute(freeze(), true, count, selection);
+	}
+
+	/**
+	 * @return number of landmarks of the distance search which still fit the
+	 *         graph (0 if there are none)
+	 */
+	public int getLengthLandmarkCount() {
+		return landmarkCount(lengthLandmarks);
+	}
+
+	/**
+	 * @return number of landmarks of the time search which still fit the graph (0
+	 *         if there are none)
+	 */
+	public int getTimeLandmarkCount() {
+		return landmarkCount(timeLandmarks);
+	}
+
+	private int landmarkCount(Landmarks landmarks) {
+		return landmarks != null && landmarks.belongsTo(freeze()) ? landmarks.count() : 0;
+	}
+
+	/*
+	 * Landmark tables for the snapshot file
+	 */
+
+	Landmarks lengthLandmarks() {
+		Landmarks landmarks = lengthLandmarks;
+		return landmarks != null && landmarks.belongsTo(freeze()) ? landmarks : null;
+	}
+
+	Landmarks timeLandmarks() {
+		Landmarks landmarks = timeLandmarks;
+		return landmarks != null && landmarks.belongsTo(freeze()) ? landmarks : null;
+	}
+
+	void setLandmarks(Landmarks length, Landmarks time) {
+		lengthLandmarks = length;
+		timeLandmarks = time;
+	}
+
+	/**
+	 * Contracts the current graph for the CONTRACTION_HIERARCHY search of
+	 * getRouteLength. The hierarchy is dropped as soon as the graph changes
+	 * 
+	 * @return number of shortcuts the contraction inserted
+	 */
+	public int prepareLengthHierarchy() {
+		ContractionHierarchy hierarchy = new ContractionHierarchy(freeze(), false);
+		lengthHierarchy = hierarchy;
+		return hierarchy.shortcutCount();
+	}
+
+	/**
+	 * Contracts the current graph (the waiting times of the nodes included) for
+	 * the CONTRACTION_HIERARCHY search of getRouteTime. The hierarchy is dropped
+	 * as soon as the graph changes
+	 * 
+	 * @return number of shortcuts the contraction inserted
+	 */
+	public int prepareTimeHierarchy() {
+		ContractionHierarchy hierarchy = new ContractionHierarchy(freeze(), true);
+		timeHierarchy = hierarchy;
+		return hierarchy.shortcutCount();
+	}
+
+	/**
+	 * Searches from every node of the current graph (in parallel on the pool) and
+	 * keeps all distances and fathers for the ORACLE lookup of getRouteLength. The
+	 * table is dropped as soon as the graph changes
+	 * 
+	 * @param pool
+	 *            the pool the searches run on
+	 */
+	public void prepareLengthOracle(ForkJoinPool pool) {
+		lengthOracle = DistanceOracle.compute(this, false, pool);
+	}
+
+	/**
+	 * Searches from every node of the current graph (in parallel on the pool) and
+	 * keeps all times and fathers for the ORACLE lookup of getRouteTime. The table
+	 * is dropped as soon as the graph changes
+	 * 
+	 * @param pool
+	 *            the pool the searches run on
+	 */
+	public void prepareTimeOracle(ForkJoinPool pool) {
+		timeOracle = DistanceOracle.compute(this, true, pool);
+	}
+
+	/*
+	 * All-pairs tables for the snapshot file
+	 */
+
+	DistanceOracle lengthOracle() {
+		DistanceOracle oracle = lengthOracle;
+		return oracle != null && oracle.belongsTo(freeze()) ? oracle : null;
+	}
+
+	DistanceOracle timeOracle() {
+		DistanceOracle oracle = timeOracle;
+		return oracle != null && oracle.belongsTo(freeze()) ? oracle : null;
+	}
+
+	void setOracles(DistanceOracle length, DistanceOracle time) {
+		lengthOracle = length;
+		timeOracle = time;
+	}
+
+	/**
+	 * Starts a new search in the workspace of the calling thread. This replaces
+	 * initializeSingleSource: instead of resetting every node a new epoch is
+	 * started, so all nodes read as unreached in O(1)
+	 * 
+	 * @param graph
+	 *            the snapshot the search runs on
+	 * @param source
+	 *            id of the source node (or -1 if there is none)
+	 * @return the workspace of the calling thread, ready for the search
+	 */
+	private SearchWorkspace beginSearch(CompactGraph graph, int source) {
+		SearchWorkspace workspace = workspaces.get();
+		workspace.begin(graph.size(), source);
+		return workspace;
 	}
 
 	/**
-	 * Resets the Distance by setting all the distances to the max_value. This
-	 * ensures the characteristics of the Dijkstra algorithm (just like the
-	 * pseudocode shown in the lecture)
+	 * Compiles the nodes and edges lists into an immutable compressed-sparse-row
+	 * snapshot (offsets, target ids and primitive weights). The snapshot is cached
+	 * until the graph changes again, so repeated (and concurrent) searches share
+	 * it
+	 * 
+	 * @return the snapshot of the current graph
 	 */
-	private void initializeSingleSource() {
-		for (Node each : nodes) {
-			each.minDistance = Double.MAX_VALUE; // set it to endless
-			each.father = null; // set the father to null
+	public CompactGraph freeze() {
+		CompactGraph frozen = snapshot;
+		if (frozen != null)
+			return frozen;
+		return compile();
+	}
+
+	/**
+	 * Builds the snapshot, only one thread at a time (and never while an edge is
+	 * added)
+	 * 
+	 * @return the snapshot of the current graph
+	 */
+	private synchronized CompactGraph compile() {
+		if (snapshot != null)
+			return snapshot;
+
+		int n = nodes.size();
+		int[] offsets = new int[n + 1];
+		int[] targets = new int[edges.size()];
+		double[] weights = new double[edges.size()];
+
+		// counts the outgoing edges of each node...
+		for (Edge each : edges) {
+			offsets[each.from.id + 1]++;
 		}
+		// ...turns the counts into start positions...
+		for (int i = 0; i < n; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		// ...and fills the blocks, keeping the insertion order of the edges
+		int[] next = new int[n];
+		System.arraycopy(offsets, 0, next, 0, n);
+		for (Edge each : edges) {
+			int position = next[each.from.id]++;
+			targets[position] = each.to.id;
+			weights[position] = each.weight;
+		}
+
+		CompactGraph frozen = new CompactGraph(offsets, targets, weights, Arrays.copyOf(waitingTimes, n));
+		snapshot = frozen;
+		return frozen;
 	}
 
 	/**
-	 * Iterates trough all the nodes in the graph to search for the node
+	 * Looks the node up in the node registry (constant time). The name is matched
+	 * by equals/hashCode, which for T has to be consistent with compareTo. Only
+	 * reads, so it can run while the graph is changed. A graph which only consists
+	 * of a snapshot (opened from a snapshot file or copied) has no Node objects
+	 * until it is changed, findNodeId works for every graph
 	 * 
 	 * @param n
 	 *            receives the Node from type T (to ensure comparability)
-	 * @return returns the node searched for if it is found, if it is not found it
-	 *         will return null
+	 * @return returns the node searched for if it is found, if it is not found (or
+	 *         the graph has no Node objects yet) it will return null
 	 */
 	public Node findNode(T n) {
-		for (Node allNodes : nodes) {
-			if (allNodes.name.compareTo(n) == 0)
-				return allNodes;
-		}
-		return null;
+		if (loadedNames != null)
+			return null;
+		Integer id = index.get(n);
+		if (id == null)
+			return null;
+		return nodeById(id);
+	}
+
+	/*
+	 * The node with the given id from nodesById (only Node objects are stored
+	 * there, generic arrays cannot be created)
+	 */
+	@SuppressWarnings("unchecked")
+	private Node nodeById(int id) {
+		return (Node) nodesById[id];
 	}
 
 	/**
-	 * Iterates trough all the edges and checks if the edge we are searching for is
-	 * existing by comparing it to the given nodes
+	 * Returns the dense id of a node
+	 * 
+	 * @param n
+	 *            name of the node
+	 * @return the id of the node or -1 if the node is not on the graph
+	 */
+	public int findNodeId(T n) {
+		NodeNames<T> names = loadedNames;
+		if (names != null)
+			return names.idOf(n);
+		Integer id = index.get(n);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the number of nodes, which is also the upper (exclusive) bound of the
+	 * node ids
+	 * 
+	 * @return the number of nodes in the graph
+	 */
+	public int size() {
+		NodeNames<T> names = loadedNames;
+		if (names != null)
+			return names.size();
+		return nodes.size();
+	}
+
+	/**
+	 * Looks the edge between the two given nodes up in the edge index
 	 * 
 	 * @param node1
 	 *            (not the same as node2!)
@@ -201,17 +1042,12 @@ public class Dijkstra<T extends Comparable<T>> {
 	 * @return Returns the edge between two nodes, if there is any.
 	 */
 	private Edge findEdge(Node node1, Node node2) {
-		for (Edge each : edges) {
-			if (each.from.equals(node1) && each.to.equals(node2)) {
-				return each;
-			}
-		}
-		return null;
+		return edgeIndex.get(edgeKey(node1.id, node2.id));
 	}
 
 	/**
-	 * Iterates trough all the edges and checks if the edge we are searching for is
-	 * existing by comparing it to the given nodes
+	 * Resolves both names in the node registry and looks the edge between them up
+	 * in the edge index
 	 * 
 	 * @param from
 	 *            not the same as node2!)
@@ -224,12 +1060,11 @@ public class Dijkstra<T extends Comparable<T>> {
 	 *         same type)
 	 */
 	private Edge findEdge(T from, T to) {
-		for (Edge each : edges) {
-			if (each.from.name.equals(from) && each.to.name.equals(to)) {
-				return each;
-			}
-		}
-		return null;
+		Node fromNode = findNode(from);
+		Node toNode = findNode(to);
+		if (fromNode == null || toNode == null)
+			return null;
+		return findEdge(fromNode, toNode);
 	}
 
 	/*
@@ -237,56 +1072,68 @@ public class Dijkstra<T extends Comparable<T>> {
 	 */
 
 	/**
-	 * Searches for all shortest paths and put the information into the nodes
+	 * Searches for the shortest paths from the source and put the information into
+	 * the workspace. The search stops as soon as all targets are settled, their
+	 * distances and paths are final then
 	 * 
-	 * @param startingNode
-	 *            receives the starting node from which to start the algorithm
+	 * @param graph
+	 *            the snapshot to search on
+	 * @param source
+	 *            id of the starting node from which to start the algorithm
+	 * @param targets
+	 *            ids of the nodes the search is for (sorted, see targetSet), null
+	 *            to search all shortest paths
 	 * @return true if the action was performed successfull and false if it was not
 	 *         or if the starting node is empty
 	 */
-	private boolean Dijkstra_findPathLength(T startingNode) {
+	private boolean Dijkstra_findPathLength(CompactGraph graph, int source, int[] targets) {
 		// obvious case
-		if (nodes.isEmpty())
+		if (graph.size() == 0)
 			return false;
 
-		// as shown in the lecture: Initalize the value of each node
-		initializeSingleSource();
+		// as shown in the lecture: Initalize the value of each node (by starting a
+		// new epoch in the workspace)
+		SearchWorkspace workspace = beginSearch(graph, source);
 
-		Node source = findNode(startingNode);
-		if (source == null)
+		if (source < 0)
 			return false;
 
 		// obviously the distance to the node itself is zero
-		source.minDistance = 0;
+		workspace.update(source, 0, -1);
 
-		// priorityQueue is created and our source Element is put into it
-		PriorityQueue<Node> priorityQueue = new PriorityQueue<>();
-		priorityQueue.add(source);
+		// our source Element is put into the (reused) frontier
+		Frontier priorityQueue = workspace.frontier(frontierType, heapArity);
+		priorityQueue.insertOrDecrease(source, 0);
+
+		// number of targets which are not settled yet
+		int pending = targets == null ? -1 : targets.length;
 
 		// as long as the priorityQueue is not empty...
 		while (priorityQueue.isEmpty() == false) {
 			// ...we poll the first Element
-			Node pqNode = priorityQueue.poll();
+			int pqNode = priorityQueue.poll();
+			double pqDistance = workspace.distance(pqNode);
+
+			// all targets are settled, nothing polled later can be shorter
+			if (pending > 0 && Arrays.binarySearch(targets, pqNode) >= 0 && --pending == 0)
+				break;
 
-			// compares each outgoing nodes value
-			for (Node node : pqNode.nodesOutgoing) {
+			// compares each outgoing nodes value, the edges of the node are one block in
+			// the snapshot
+			for (int e = graph.firstEdge(pqNode); e < graph.lastEdge(pqNode); e++) {
 
 				// from here on it is basically the relax function trying
 				// to find a minimal node
-				Edge edge = findEdge(pqNode, node);
-
-				if (edge == null)
-					return false;
+				int node = graph.target(e);
 
 				// the total distance traveled so far is our previous distance plus the weight
 				// of the edge we are looking at at the moment
-				double totalDistance = pqNode.minDistance + edge.weight;
+				double totalDistance = pqDistance + graph.weight(e);
 
-				if (totalDistance < node.minDistance) {
-					priorityQueue.remove(node);
-					node.minDistance = totalDistance;
-					node.father = pqNode;
-					priorityQueue.add(node);
+				// decrease-key: the node moves up in the frontier (or is put into it)
+				if (totalDistance < workspace.distance(node)) {
+					workspace.update(node, totalDistance, pqNode);
+					priorityQueue.insertOrDecrease(node, totalDistance);
 				}
 			}
 
@@ -305,16 +1152,19 @@ public class Dijkstra<T extends Comparable<T>> {
 	 * @return returns the path we took (as list) to get to our destination and the
 	 *         length to each path (accumulated)
 	 */
-	private List<String> getShortestPath(Node target) {
+	private List<String> getShortestPath(int target) {
 		List<String> path = new ArrayList<String>();
+		// the result of the last search of this thread
+		SearchWorkspace workspace = workspaces.get();
 	
-		if (target.minDistance == Double.MAX_VALUE) {
+		if (!workspace.reached(target)) {
 			path.add("No path found");
-		}
-	
-		for (Node n = target; n != null; n = n.father) {
+			path.add(getName(target) + " : length : " + Math.ceil(SearchWorkspace.UNREACHED));
+		} else {
+			for (int n = target; n >= 0; n = workspace.predecessor(n)) {
 	
-			path.add(n.name + " : length : " + Math.ceil(n.minDistance));
+				path.add(getName(n) + " : length : " + Math.ceil(workspace.distance(n)));
+			}
 		}
 	
 		// reverses the path because we start at the destination and go up until we are
@@ -339,78 +1189,427 @@ public class Dijkstra<T extends Comparable<T>> {
 		 * Is not really unused, this is the essential call to initalize the path and
 		 * get the all information needed
 		 */
+		int target = findNodeId(to);
 		@SuppressWarnings("unused")
-		boolean djikstra = Dijkstra_findPathLength(from);
+		boolean djikstra = Dijkstra_findPathLength(freeze(), findNodeId(from), targetSet(target));
 
-		List<String> path = getShortestPath(findNode(to));
+		List<String> path = getShortestPath(target);
 		return path;
 	}
 
 	/**
-	 * Gets the string information from the getPathLength method and only extracts
-	 * the integer of the route travelled
+	 * Runs the distance search and returns the shortest route from source to
+	 * destination directly as a typed result (no string work)
 	 * 
 	 * @param source
 	 *            node from which to start
 	 * @param destination
 	 *            node to which to go
-	 * @return returns the length (as km) of the shortest route from source to
-	 *         destination
+	 * @return the length (in km) and the nodes of the shortest route or the
+	 *         status code why there is none
 	 */
-	public int getLengthAsInt(T source, T destination) {
+	public RouteResult getRouteLength(T source, T destination) {
+		return getRouteLength(source, destination, Algorithm.DIJKSTRA);
+	}
 
-		/**
-		 * Catches all the mistakes
-		 */
-		if (findNode(source) == null) {
-			return Navigation.SOURCE_NOT_FOUND;
+	/**
+	 * Searches the shortest route from source to destination with the given
+	 * algorithm
+	 * 
+	 * @param source
+	 *            node from which to start
+	 * @param destination
+	 *            node to which to go
+	 * @param algorithm
+	 *            the search algorithm
+	 * @return the length (in km) and the nodes of the shortest route or the
+	 *         status code why there is none
+	 */
+	public RouteResult getRouteLength(T source, T destination, Algorithm algorithm) {
+		return route(findNodeId(source), findNodeId(destination), false, algorithm);
+	}
 
+	/**
+	 * Runs exactly one search for a query: both names were looked up once by the
+	 * caller, the graph is frozen once and every algorithm stops as soon as the
+	 * route to the destination is certain. Path, value and status all come from
+	 * this one search
+	 * 
+	 * @param source
+	 *            id of the node from which to start (-1 if it is not on the graph)
+	 * @param destination
+	 *            id of the node to which to go (-1 if it is not on the graph)
+	 * @param waiting
+	 *            true for the time search (the waiting times of the nodes are
+	 *            added)
+	 * @param algorithm
+	 *            the search algorithm
+	 * @return the route or the status code why there is none
+	 */
+	private RouteResult route(int source, int destination, boolean waiting, Algorithm algorithm) {
+		int status = checkEndpoints(source, destination);
+		if (status != RouteResult.FOUND)
+			return RouteResult.failed(status);
+
+		// a hot source is answered from its tree. It is repaired before the
+		// generation moves on, so an answer is never older than the generation read
+		// before the query
+		DynamicTree tree = (waiting ? timeTrees : lengthTrees).get(source);
+		if (tree != null)
+			return tree.route(destination);
+
+		CompactGraph graph = freeze();
+		switch (algorithm) {
+		case BIDIRECTIONAL:
+			return bidirectional(graph, source, destination, waiting);
+		case ALT:
+			return AStarSearch.search(graph, source, destination, waiting, waiting ? timeLandmarks : lengthLandmarks,
+					workspaces.get(), frontierType, heapArity);
+		case CONTRACTION_HIERARCHY:
+			ContractionHierarchy hierarchy = waiting ? timeHierarchy : lengthHierarchy;
+			if (hierarchy == null || !hierarchy.belongsTo(graph))
+				return bidirectional(graph, source, destination, waiting);
+			return hierarchy.search(source, destination, workspaces.get(), backwardWorkspaces.get(), frontierType,
+					heapArity);
+		case ORACLE:
+			DistanceOracle oracle = waiting ? timeOracle : lengthOracle;
+			if (oracle == null || !oracle.belongsTo(graph))
+				return bidirectional(graph, source, destination, waiting);
+			return oracle.route(source, destination);
+		default:
+			if (waiting)
+				Dijkstra_findPathTime(graph, source, targetSet(destination));
+			else
+				Dijkstra_findPathLength(graph, source, targetSet(destination));
+			return lastResult(destination);
 		}
+	}
 
-		if (findNode(destination) == null) {
-			return Navigation.DESTINATION_NOT_FOUND;
+	/**
+	 * Prepares the targets of a search: sorted, every node only once and without
+	 * the ids of nodes which are not on the graph
+	 * 
+	 * @param ids
+	 *            ids of the targets (-1 for a node not on the graph)
+	 * @return the target set or null (search all nodes) if no target is on the
+	 *         graph
+	 */
+	static int[] targetSet(int... ids) {
+		int[] targets = ids.clone();
+		Arrays.sort(targets);
+		int count = 0;
+		for (int i = 0; i < targets.length; i++) {
+			if (targets[i] >= 0 && (count == 0 || targets[count - 1] != targets[i]))
+				targets[count++] = targets[i];
 		}
+		return count == 0 ? null : Arrays.copyOf(targets, count);
+	}
 
-		if (findNode(destination) == null && findNode(source) == null) {
-			return Navigation.SOURCE_DESTINATION_NOT_FOUND;
+	/**
+	 * Searches the shortest routes from one source to many targets with one search,
+	 * which stops as soon as all targets are settled
+	 * 
+	 * @param source
+	 *            node from which to start
+	 * @param targets
+	 *            nodes to which to go
+	 * @return for every target (in the order of the collection) the length of the
+	 *         shortest route (in km, rounded upwards) or the status code why there
+	 *         is none
+	 */
+	public int[] getRouteLengths(T source, Collection<T> targets) {
+		return routes(source, targets, false);
+	}
+
+	/**
+	 * Searches the fastest routes from one source to many targets with one search,
+	 * which stops as soon as all targets are settled
+	 * 
+	 * @param source
+	 *            node from which to start
+	 * @param targets
+	 *            nodes to which to go
+	 * @return for every target (in the order of the collection) the time of the
+	 *         fastest route (in minutes, rounded upwards) or the status code why
+	 *         there is none
+	 */
+	public int[] getRouteTimes(T source, Collection<T> targets) {
+		return routes(source, targets, true);
+	}
+
+	/**
+	 * Searches all shortest routes from the source at once (the shortest path tree
+	 * of the source), from the tree of a hot source if there is one
+	 * 
+	 * @param source
+	 *            the root of the tree
+	 * @param waiting
+	 *            true for the time search
+	 * @return the father of every node in the tree (-1 for the source and for the
+	 *         nodes it does not reach), null if the source is not on the graph
+	 */
+	int[] shortestPathTree(T source, boolean waiting) {
+		int id = findNodeId(source);
+		if (id < 0)
+			return null;
+		DynamicTree tree = (waiting ? timeTrees : lengthTrees).get(id);
+		if (tree != null)
+			return tree.fathers();
+
+		CompactGraph graph = freeze();
+		SearchWorkspace workspace = search(graph, id, null, waiting);
+		int[] fathers = new int[graph.size()];
+		for (int v = 0; v < fathers.length; v++) {
+			fathers[v] = workspace.reached(v) ? workspace.predecessor(v) : -1;
 		}
+		return fathers;
+	}
 
-		List<String> path = getShortestPath(findNode(destination));
+	/**
+	 * Runs the one-sided search in the workspace of the calling thread
+	 * 
+	 * @param graph
+	 *            the snapshot to search on
+	 * @param source
+	 *            id of the source
+	 * @param targets
+	 *            the targets (see targetSet), null to search all nodes
+	 * @param waiting
+	 *            true for the time search
+	 * @return the workspace of the calling thread with the result
+	 */
+	SearchWorkspace search(CompactGraph graph, int source, int[] targets, boolean waiting) {
+		if (waiting)
+			Dijkstra_findPathTime(graph, source, targets);
+		else
+			Dijkstra_findPathLength(graph, source, targets);
+		return workspaces.get();
+	}
+
+	/**
+	 * Computes the lengths of the shortest routes from every source to every
+	 * target, the rows (sources) are searched in parallel on the pool
+	 * 
+	 * @param sources
+	 *            nodes from which to start
+	 * @param targets
+	 *            nodes to which to go
+	 * @param pool
+	 *            the pool the rows are computed on
+	 * @return the matrix (in km)
+	 */
+	public DistanceMatrix getLengthMatrix(Collection<T> sources, Collection<T> targets, ForkJoinPool pool) {
+		return DistanceMatrix.compute(this, ids(sources), ids(targets), false, pool);
+	}
 
-		// stores the information of the length at the destination node
-		String maxValueOfPath = Collections.max(path);
+	/**
+	 * Computes the times of the fastest routes from every source to every target,
+	 * the rows (sources) are searched in parallel on the pool
+	 * 
+	 * @param sources
+	 *            nodes from which to start
+	 * @param targets
+	 *            nodes to which to go
+	 * @param pool
+	 *            the pool the rows are computed on
+	 * @return the matrix (in minutes)
+	 */
+	public DistanceMatrix getTimeMatrix(Collection<T> sources, Collection<T> targets, ForkJoinPool pool) {
+		return DistanceMatrix.compute(this, ids(sources), ids(targets), true, pool);
+	}
 
-		// replaces all the unnecessary strings so we can use the integer
-		String maxPath = path.toString().replaceAll(" ", "").replaceAll("length", "");
+	/**
+	 * Like getLengthMatrix, but the rows are written to a file as soon as they are
+	 * computed instead of being kept in memory
+	 * 
+	 * @param sources
+	 *            nodes from which to start
+	 * @param targets
+	 *            nodes to which to go
+	 * @param pool
+	 *            the pool the rows are computed on
+	 * @param file
+	 *            the file to write (format see DistanceMatrix)
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void writeLengthMatrix(Collection<T> sources, Collection<T> targets, ForkJoinPool pool, Path file)
+			throws IOException {
+		DistanceMatrix.write(this, ids(sources), ids(targets), false, pool, file);
+	}
 
-		maxPath = maxPath.replaceAll("[A-Z]", "");
-		maxPath = maxPath.replaceAll("[a-z]", "");
-		maxPath = maxPath.replaceAll("::", "");
+	/**
+	 * Like getTimeMatrix, but the rows are written to a file as soon as they are
+	 * computed instead of being kept in memory
+	 * 
+	 * @param sources
+	 *            nodes from which to start
+	 * @param targets
+	 *            nodes to which to go
+	 * @param pool
+	 *            the pool the rows are computed on
+	 * @param file
+	 *            the file to write (format see DistanceMatrix)
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void writeTimeMatrix(Collection<T> sources, Collection<T> targets, ForkJoinPool pool, Path file)
+			throws IOException {
+		DistanceMatrix.write(this, ids(sources), ids(targets), true, pool, file);
+	}
 
-		// turns all the Elements into an string array
-		String[] maxPathArray = maxPath.replace("[", "").replace("]", "").split(",");
+	/**
+	 * @return the ids of the nodes (-1 for a node which is not on the graph)
+	 */
+	private int[] ids(Collection<T> names) {
+		int[] ids = new int[names.size()];
+		int i = 0;
+		for (T name : names) {
+			ids[i++] = findNodeId(name);
+		}
+		return ids;
+	}
 
-		if (maxValueOfPath.compareTo("No path found") == 0) {
-			return Navigation.NO_PATH;
+	/**
+	 * One search from the source for all targets, the results are read out of the
+	 * workspace afterwards
+	 */
+	private int[] routes(T source, Collection<T> targets, boolean waiting) {
+		int sourceId = findNodeId(source);
+		int[] ids = ids(targets);
+
+		DynamicTree tree = sourceId >= 0 ? (waiting ? timeTrees : lengthTrees).get(sourceId) : null;
+		int[] targetSet = targetSet(ids);
+		if (tree == null && sourceId >= 0 && targetSet != null)
+			search(freeze(), sourceId, targetSet, waiting);
+
+		SearchWorkspace workspace = workspaces.get();
+		int[] results = new int[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			int status = checkEndpoints(sourceId, ids[i]);
+			if (status != RouteResult.FOUND)
+				results[i] = status;
+			else if (tree != null) {
+				double distance = tree.distance(ids[i]);
+				results[i] = distance == Double.POSITIVE_INFINITY ? Navigation.NO_PATH : RouteResult.round(distance);
+			} else if (!workspace.reached(ids[i]))
+				results[i] = Navigation.NO_PATH;
+			else
+				results[i] = RouteResult.round(workspace.distance(ids[i]));
 		}
+		return results;
+	}
 
-		/*
-		 * compares all the values and finds the biggest of them, so we output the
-		 * correct length
-		 */
-		double highest = 0;
+	/**
+	 * Runs a bidirectional search in the workspaces of the calling thread
+	 * 
+	 * @param graph
+	 *            the snapshot to search on
+	 * @param source
+	 *            id of the node from which to start
+	 * @param destination
+	 *            id of the node to which to go
+	 * @param waiting
+	 *            true if the waiting times of the nodes have to be added
+	 * @return the route or NO_PATH
+	 */
+	private RouteResult bidirectional(CompactGraph graph, int source, int destination, boolean waiting) {
+		return BidirectionalSearch.search(graph, source, destination, waiting, workspaces.get(),
+				backwardWorkspaces.get(), frontierType, heapArity);
+	}
 
-		for (int i = 0; i < maxPathArray.length; i++) {
+	/**
+	 * Returns the length of the shortest route from source to destination found by
+	 * the last search (getPathLength) of this thread
+	 * 
+	 * @param source
+	 *            node from which to start
+	 * @param destination
+	 *            node to which to go
+	 * @return returns the length (as km) of the shortest route from source to
+	 *         destination
+	 */
+	public int getLengthAsInt(T source, T destination) {
+		int status = checkEndpoints(source, destination);
+		if (status != RouteResult.FOUND)
+			return status;
 
-			if (highest < Double.parseDouble(maxPathArray[i])) {
+		return lastResult(findNodeId(destination)).getRoundedValue();
+	}
 
-				highest = Double.parseDouble(maxPathArray[i]);
+	/**
+	 * Catches all the mistakes: checks that source and destination are on the
+	 * graph
+	 * 
+	 * @param source
+	 *            node from which to start
+	 * @param destination
+	 *            node to which to go
+	 * @return FOUND if both are on the graph, otherwise the return code of
+	 *         Navigation
+	 */
+	private int checkEndpoints(T source, T destination) {
+		return checkEndpoints(findNodeId(source), findNodeId(destination));
+	}
 
-			}
-		}
+	/**
+	 * Same check on ids which were looked up already
+	 * 
+	 * @param source
+	 *            id of the source (-1 if it is not on the graph)
+	 * @param destination
+	 *            id of the destination (-1 if it is not on the graph)
+	 * @return FOUND if both are on the graph, otherwise the return code of
+	 *         Navigation
+	 */
+	private int checkEndpoints(int source, int destination) {
+		boolean noSource = source < 0;
+		boolean noDestination = destination < 0;
 
-		return (int) highest;
+		if (noSource && noDestination)
+			return Navigation.SOURCE_DESTINATION_NOT_FOUND;
+		if (noSource)
+			return Navigation.SOURCE_NOT_FOUND;
+		if (noDestination)
+			return Navigation.DESTINATION_NOT_FOUND;
+		return RouteResult.FOUND;
+	}
+
+	/**
+	 * Reads the route to the destination out of the workspace of the last search
+	 * of this thread
+	 * 
+	 * @param destination
+	 *            id of the destination node
+	 * @return the route found by the last search or NO_PATH
+	 */
+	private RouteResult lastResult(int destination) {
+		SearchWorkspace workspace = workspaces.get();
+		if (!workspace.reached(destination))
+			return RouteResult.failed(Navigation.NO_PATH);
+
+		// counts the nodes on the route first, so the path can be filled backwards
+		int count = 0;
+		for (int n = destination; n >= 0; n = workspace.predecessor(n)) {
+			count++;
+		}
+		int[] path = new int[count];
+		for (int n = destination; n >= 0; n = workspace.predecessor(n)) {
+			path[--count] = n;
+		}
+		return new RouteResult(RouteResult.FOUND, workspace.distance(destination), path);
+	}
 
+	/**
+	 * @param id
+	 *            id of the node
+	 * @return the name of the node with the given id
+	 */
+	public T getName(int id) {
+		NodeNames<T> names = loadedNames;
+		if (names != null)
+			return names.nameOf(id);
+		return nodeById(id).name;
 	}
 
 	/*
@@ -418,61 +1617,79 @@ public class Dijkstra<T extends Comparable<T>> {
 	 */
 
 	/**
-	 * Searches for all fastest paths and put the information into the nodes
+	 * Searches for all fastest paths and put the information into the nodes. The
+	 * time of a path is the time on its edges plus the waiting time of every node
+	 * travelled through (not the one of the source, where the path starts, and not
+	 * the one of the node where it ends)
 	 * 
-	 * @param startingNode
-	 *            receives the starting node from which to start the algorithm
+	 * 
+	 * The search stops as soon as all targets are settled, their times and paths
+	 * are final then
+	 * 
+	 * @param graph
+	 *            the snapshot to search on
+	 * @param source
+	 *            id of the starting node from which to start the algorithm
+	 * @param targets
+	 *            ids of the nodes the search is for (sorted, see targetSet), null
+	 *            to search all fastest paths
 	 * @return true if the action was performed successfull and false if it was not
 	 *         or if the starting node is empty
 	 */
-	private boolean Dijkstra_findPathTime(T startingNode) {
+	private boolean Dijkstra_findPathTime(CompactGraph graph, int source, int[] targets) {
 		// obvious case
-		if (nodes.isEmpty())
+		if (graph.size() == 0)
 			return false;
 
-		// as shown in the lecture: Initalize the value of each node
-		initializeSingleSource();
+		// as shown in the lecture: Initalize the value of each node (by starting a
+		// new epoch in the workspace)
+		SearchWorkspace workspace = beginSearch(graph, source);
 
-		Node source = findNode(startingNode);
-		if (source == null)
+		if (source < 0)
 			return false;
 
 		// obviously the distance to the node itself is zero
-		source.minDistance = 0;
+		workspace.update(source, 0, -1);
+
+		// our source Element is put into the (reused) frontier
+		Frontier priorityQueue = workspace.frontier(frontierType, heapArity);
+		priorityQueue.insertOrDecrease(source, 0);
 
-		// priorityQueue is created and our source Element is put into it
-		PriorityQueue<Node> priorityQueue = new PriorityQueue<>();
-		priorityQueue.add(source);
+		// number of targets which are not settled yet
+		int pending = targets == null ? -1 : targets.length;
 
 		// as long as the priorityQueue is not empty...
 		while (priorityQueue.isEmpty() == false) {
 
 			// ...we poll the first Element
-			Node nodePQ = priorityQueue.poll();
+			int nodePQ = priorityQueue.poll();
+			double pqDistance = workspace.distance(nodePQ);
 
-			// compares each outgoing nodes value
-			for (Node nodes : nodePQ.nodesOutgoing) {
+			// all targets are settled, nothing polled later can be faster
+			if (pending > 0 && Arrays.binarySearch(targets, nodePQ) >= 0 && --pending == 0)
+				break;
 
-				// from here on it is basically the relax function trying
-				// to find a minimal node
-				Edge edge = findEdge(nodePQ, nodes);
+			// we only have to wait at the node if we travel through it, not if we start
+			// at it
+			double waitTime = nodePQ == source ? 0 : graph.waitingTime(nodePQ);
 
-				if (edge == null)
-					return false;
+			// compares each outgoing nodes value, the edges of the node are one block in
+			// the snapshot
+			for (int e = graph.firstEdge(nodePQ); e < graph.lastEdge(nodePQ); e++) {
 
-				// calls the dictionary function and looks up the waiting time
-				int waitTime = returnWaitingTime(nodePQ.name.toString());
+				// from here on it is basically the relax function trying
+				// to find a minimal node
+				int nodes = graph.target(e);
 
 				// the total distance traveled so far is our previous distance plus the weight
 				// of the edge we are looking at at the moment. Also adds the waitTime of the
 				// current Node
-				double totalDistance = nodePQ.minDistance + edge.weight + waitTime;
+				double totalDistance = pqDistance + graph.weight(e) + waitTime;
 
-				if (totalDistance < nodes.minDistance) {
-					priorityQueue.remove(nodes);
-					nodes.minDistance = totalDistance;
-					nodes.father = nodePQ;
-					priorityQueue.add(nodes);
+				// decrease-key: the node moves up in the frontier (or is put into it)
+				if (totalDistance < workspace.distance(nodes)) {
+					workspace.update(nodes, totalDistance, nodePQ);
+					priorityQueue.insertOrDecrease(nodes, totalDistance);
 				}
 			}
 
@@ -485,18 +1702,21 @@ public class Dijkstra<T extends Comparable<T>> {
 	 * @param destination the target node to which to travel
 	 * @return returns the path which 
 	 */
-	private List<String> getFastestPath(Node destination) {
+	private List<String> getFastestPath(int destination) {
 		List<String> path = new ArrayList<String>();
+		// the result of the last search of this thread
+		SearchWorkspace workspace = workspaces.get();
 
-		if (destination.minDistance == Double.MAX_VALUE) {
+		if (!workspace.reached(destination)) {
 
 			path.add("No path found");
-		}
-
-		for (Node n = destination; n != null; n = n.father) {
+			path.add(getName(destination) + " : length : " + SearchWorkspace.UNREACHED);
+		} else {
+			for (int n = destination; n >= 0; n = workspace.predecessor(n)) {
 
-			path.add(n.name + " : length : " + n.minDistance);
+				path.add(getName(n) + " : length : " + workspace.distance(n));
 
+			}
 		}
 
 		Collections.reverse(path);
@@ -511,99 +1731,63 @@ public class Dijkstra<T extends Comparable<T>> {
 	 * @return returns the list of all traversed nodes and the accumulated length
 	 */
 	public List<String> getPathTime(T source, T destination) {
+		int target = findNodeId(destination);
 		@SuppressWarnings("unused")
-		boolean test = Dijkstra_findPathTime(source);
+		boolean test = Dijkstra_findPathTime(freeze(), findNodeId(source), targetSet(target));
 
-		List<String> path = getFastestPath(findNode(destination));
+		List<String> path = getFastestPath(target);
 		return path;
 	}
 
 	/**
-	 * Extracts only the useful information from our path to return only the integer of the time 
-	 * it takes to travel from the source to the destination
-	 * @param source source node from which to start
-	 * @param destination destination node to which to travel
-	 * @return returns the time it takes to travel from source to destination ( in minutes )
+	 * Runs the time search and returns the fastest route from source to
+	 * destination directly as a typed result (no string work)
 	 * 
+	 * @param source
+	 *            node from which to start
+	 * @param destination
+	 *            node to which to go
+	 * @return the time (in minutes) and the nodes of the fastest route or the
+	 *         status code why there is none
 	 */
-
-	public int getTime(T source, T destination) {
-		//catches all exceptions or cases which should not further be calculated
-		if (findNode(source) == null) {
-			return Navigation.SOURCE_NOT_FOUND;
-
-		}
-
-		if (findNode(destination) == null) {
-			return Navigation.DESTINATION_NOT_FOUND;
-		}
-
-		if (findNode(destination) == null && findNode(source) == null) {
-			return Navigation.SOURCE_DESTINATION_NOT_FOUND;
-		}
-		
-		
-		//receives all path informatin
-		List<String> path = getShortestPath(findNode(destination));
-		String maxValuesofPath = Collections.max(path);
-
-		//removes all unnecessary information we dont need for our calculation
-		String stringExtractor = path.toString().replaceAll(" ", "").replaceAll("length", "");
-
-		stringExtractor = stringExtractor.replaceAll("[A-Z]", "");
-		stringExtractor = stringExtractor.replaceAll("[a-z]", "");
-		stringExtractor = stringExtractor.replaceAll("::", "");
-
-		//turns the string into an array to make it easier to compare
-		String[] valueArray = stringExtractor.replace("[", "").replace("]", "").split(",");
-
-		
-		//catches if there is no path found 
-		if (maxValuesofPath.compareTo("No path found") == 0) {
-			return Navigation.NO_PATH;
-		}
-
-		
-		//finds the highes value 
-		double highest = 0;
-
-		for (int i = 0; i < valueArray.length; i++) {
-
-			if (highest < Double.parseDouble(valueArray[i])) {
-
-				highest = Double.parseDouble(valueArray[i]);
-
-			}
-		}
-
-		return (int) highest;
+	public RouteResult getRouteTime(T source, T destination) {
+		return getRouteTime(source, destination, Algorithm.DIJKSTRA);
 	}
 
 	/**
+	 * Searches the fastest route from source to destination with the given
+	 * algorithm
 	 * 
-	 * @param node
-	 *            receives the node which should be looked up in our "dictionary"
-	 * @return returns the integer value of the waiting time of the node
+	 * @param source
+	 *            node from which to start
+	 * @param destination
+	 *            node to which to go
+	 * @param algorithm
+	 *            the search algorithm
+	 * @return the time (in minutes) and the nodes of the fastest route or the
+	 *         status code why there is none
 	 */
-	private int returnWaitingTime(String node) {
-
-		Dijkstra.waitingTime = Navigation.waitingTime;
-		int waitingTimeInt = 0;
-
-		for (int i = 0; i < waitingTime.size(); i++) {
-
-			String value = Dijkstra.waitingTime.get(i).substring(0, Dijkstra.waitingTime.get(i).indexOf(' '));
-
-			if (value.equals(node)) {
-				int blank = Dijkstra.waitingTime.get(i).indexOf(' ');
-
-				waitingTimeInt = Integer.valueOf(waitingTime.get(i).substring(blank + 1));
-
-			}
+	public RouteResult getRouteTime(T source, T destination, Algorithm algorithm) {
+		return route(findNodeId(source), findNodeId(destination), true, algorithm);
+	}
 
-		}
+	/**
+	 * Returns the time of the fastest route from source to destination found by
+	 * the last search (getPathTime) of this thread
+	 * 
+	 * @param source
+	 *            source node from which to start
+	 * @param destination
+	 *            destination node to which to travel
+	 * @return returns the time it takes to travel from source to destination ( in
+	 *         minutes )
+	 */
+	public int getTime(T source, T destination) {
+		int status = checkEndpoints(source, destination);
+		if (status != RouteResult.FOUND)
+			return status;
 
-		return waitingTimeInt;
+		return lastResult(findNodeId(destination)).getRoundedValue();
 	}
 
 }
\ No newline at end of file
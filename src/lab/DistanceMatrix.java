@@ -0,0 +1,308 @@
+package lab;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Distances (or times) from N sources to M targets as one flat row-major array:
+ * the value from source i to target j is at position i * M + j. A route which
+ * does not exist is Double.POSITIVE_INFINITY, a source or target which is not
+ * on the map Double.NaN.
+ *
+ * The rows are computed in parallel on a ForkJoinPool. Every row is one search
+ * from its source which stops as soon as all targets are settled; every worker
+ * thread searches in its own workspace on the shared frozen graph, so the rows
+ * are completely independent of each other.
+ *
+ * A matrix can also be written to a file instead of being kept in memory. The
+ * file starts with a header (magic "DIJKMATX", int version, int rows, int
+ * columns, int waiting flag, long 0; all numbers little-endian) followed by the
+ * rows as doubles.
+ *
+ * @author thecr
+ *
+ */
+public final class DistanceMatrix {
+
+	static final byte[] MAGIC = "DIJKMATX".getBytes(StandardCharsets.US_ASCII);
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 32;
+
+	// rows one task computes at least before it stops splitting
+	private static final int ROWS_PER_TASK = 4;
+
+	private final int rows;
+	private final int columns;
+	// ids of the sources and targets (-1 for a node which is not on the map)
+	private final int[] sources;
+	private final int[] targets;
+	private final double[] values;
+
+	private DistanceMatrix(int[] sources, int[] targets, double[] values) {
+		this.rows = sources.length;
+		this.columns = targets.length;
+		this.sources = sources;
+		this.targets = targets;
+		this.values = values;
+	}
+
+	/**
+	 * Where the computed rows go
+	 */
+	private interface RowSink {
+		void put(int row, double[] values) throws IOException;
+	}
+
+	/**
+	 * Computes the matrix in memory
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param sources
+	 *            ids of the sources (-1 for a node which is not on the map)
+	 * @param targets
+	 *            ids of the targets (-1 for a node which is not on the map)
+	 * @param waiting
+	 *            true for the time search (the waiting times of the nodes are
+	 *            added)
+	 * @param pool
+	 *            the pool the rows are computed on
+	 * @return the matrix
+	 */
+	static DistanceMatrix compute(Dijkstra<?> graph, int[] sources, int[] targets, boolean waiting,
+			ForkJoinPool pool) {
+		double[] values = new double[Math.multiplyExact(sources.length, targets.length)];
+		try {
+			run(graph, sources, targets, waiting, pool,
+					(row, rowValues) -> System.arraycopy(rowValues, 0, values, row * targets.length, targets.length));
+		} catch (IOException e) {
+			// the array sink does not throw
+			throw new IllegalStateException(e);
+		}
+		return new DistanceMatrix(sources, targets, values);
+	}
+
+	/**
+	 * Computes the matrix directly into a file, without keeping it in memory
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param sources
+	 *            ids of the sources (-1 for a node which is not on the map)
+	 * @param targets
+	 *            ids of the targets (-1 for a node which is not on the map)
+	 * @param waiting
+	 *            true for the time search (the waiting times of the nodes are
+	 *            added)
+	 * @param pool
+	 *            the pool the rows are computed on
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	static void write(Dijkstra<?> graph, int[] sources, int[] targets, boolean waiting, ForkJoinPool pool,
+			Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header(sources.length, targets.length, waiting), 0);
+			// positional writes of different rows do not interfere, so the workers
+			// write their rows themselves
+			run(graph, sources, targets, waiting, pool, (row, rowValues) -> {
+				ByteBuffer bytes = ByteBuffer.allocate(rowValues.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+				bytes.asDoubleBuffer().put(rowValues);
+				writeFully(channel, bytes, HEADER_SIZE + (long) row * targets.length * 8);
+			});
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Writes the matrix to a file (same format as write(...) above)
+	 *
+	 * @param file
+	 *            the file to write
+	 * @param waiting
+	 *            true if the matrix holds times
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void write(Path file, boolean waiting) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header(rows, columns, waiting), 0);
+			long position = HEADER_SIZE;
+			int rowsPerChunk = Math.max(1, (1 << 20) / Math.max(1, columns));
+			for (int row = 0; row < rows; row += rowsPerChunk) {
+				int count = Math.min(rowsPerChunk, rows - row) * columns;
+				ByteBuffer bytes = ByteBuffer.allocate(count * 8).order(ByteOrder.LITTLE_ENDIAN);
+				bytes.asDoubleBuffer().put(values, row * columns, count);
+				writeFully(channel, bytes, position);
+				position += count * 8L;
+			}
+			channel.force(false);
+		}
+	}
+
+	private static ByteBuffer header(int rows, int columns, boolean waiting) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).putInt(waiting ? 1 : 0).putLong(0);
+		header.flip();
+		return header;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	/**
+	 * Computes all rows on the pool and hands them to the sink
+	 */
+	private static void run(Dijkstra<?> graph, int[] sources, int[] targets, boolean waiting, ForkJoinPool pool,
+			RowSink sink) throws IOException {
+		CompactGraph snapshot = graph.freeze();
+		int[] targetSet = Dijkstra.targetSet(targets);
+		RowTask task = new RowTask(graph, snapshot, sources, targets, targetSet, waiting, sink, 0, sources.length);
+		pool.invoke(task);
+		if (task.failure != null)
+			throw task.failure;
+	}
+
+	/**
+	 * Computes the rows from first (inclusive) to last (exclusive), big blocks are
+	 * split in halves
+	 */
+	private static final class RowTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Dijkstra<?> graph;
+		private final CompactGraph snapshot;
+		private final int[] sources;
+		private final int[] targets;
+		private final int[] targetSet;
+		private final boolean waiting;
+		private final RowSink sink;
+		private final int first;
+		private final int last;
+		// the first write error of this task or of one of its halves
+		volatile IOException failure;
+
+		RowTask(Dijkstra<?> graph, CompactGraph snapshot, int[] sources, int[] targets, int[] targetSet,
+				boolean waiting, RowSink sink, int first, int last) {
+			this.graph = graph;
+			this.snapshot = snapshot;
+			this.sources = sources;
+			this.targets = targets;
+			this.targetSet = targetSet;
+			this.waiting = waiting;
+			this.sink = sink;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute() {
+			if (last - first > ROWS_PER_TASK) {
+				int middle = (first + last) >>> 1;
+				RowTask left = new RowTask(graph, snapshot, sources, targets, targetSet, waiting, sink, first,
+						middle);
+				RowTask right = new RowTask(graph, snapshot, sources, targets, targetSet, waiting, sink, middle,
+						last);
+				invokeAll(left, right);
+				failure = left.failure != null ? left.failure : right.failure;
+				return;
+			}
+
+			double[] row = new double[targets.length];
+			for (int i = first; i < last; i++) {
+				int source = sources[i];
+				SearchWorkspace workspace = null;
+				if (source >= 0 && targetSet != null)
+					workspace = graph.search(snapshot, source, targetSet, waiting);
+				for (int j = 0; j < targets.length; j++) {
+					int target = targets[j];
+					if (source < 0 || target < 0)
+						row[j] = Double.NaN;
+					else if (!workspace.reached(target))
+						row[j] = Double.POSITIVE_INFINITY;
+					else
+						row[j] = workspace.distance(target);
+				}
+				try {
+					sink.put(i, row);
+				} catch (IOException e) {
+					failure = e;
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return number of sources
+	 */
+	public int rows() {
+		return rows;
+	}
+
+	/**
+	 * @return number of targets
+	 */
+	public int columns() {
+		return columns;
+	}
+
+	/**
+	 * @param row
+	 *            number of the source
+	 * @param column
+	 *            number of the target
+	 * @return the distance (or time), POSITIVE_INFINITY if there is no route, NaN
+	 *         if source or target are not on the map
+	 */
+	public double get(int row, int column) {
+		return values[row * columns + column];
+	}
+
+	/**
+	 * @return the values row after row. This is the array of the matrix itself
+	 *         (no copy, so big matrices are not duplicated) and must not be
+	 *         changed
+	 */
+	public double[] values() {
+		return values;
+	}
+
+	/**
+	 * @return all values rounded upwards, or the status code (as returned by
+	 *         Navigation) where there is no route, row after row
+	 */
+	public int[] toRoundedArray() {
+		int[] rounded = new int[values.length];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < columns; j++) {
+				int at = i * columns + j;
+				if (sources[i] < 0 && targets[j] < 0)
+					rounded[at] = Navigation.SOURCE_DESTINATION_NOT_FOUND;
+				else if (sources[i] < 0)
+					rounded[at] = Navigation.SOURCE_NOT_FOUND;
+				else if (targets[j] < 0)
+					rounded[at] = Navigation.DESTINATION_NOT_FOUND;
+				else if (values[at] == Double.POSITIVE_INFINITY)
+					rounded[at] = Navigation.NO_PATH;
+				else
+					rounded[at] = RouteResult.round(values[at]);
+			}
+		}
+		return rounded;
+	}
+}
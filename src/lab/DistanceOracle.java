@@ -0,0 +1,174 @@
+package lab;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Precomputed answers for all pairs of nodes: the distance (or time) from every
+ * node to every other node and the father of every node on the route from
+ * every source. A query is a lookup at position source * n + destination, a
+ * route is rebuilt by following the fathers of the source's row backwards from
+ * the destination, so nothing has to be searched any more.
+ *
+ * The table is computed by one search from every node (the rows are searched in
+ * parallel like the rows of a {@link DistanceMatrix}). It needs 12 bytes for
+ * every pair of nodes, so it is meant for small and medium maps. It can be
+ * saved in a snapshot file and is then read directly from the mapped file.
+ *
+ * @author thecr
+ *
+ */
+final class DistanceOracle {
+
+	// the snapshot the table was computed for
+	private final CompactGraph graph;
+	private final int n;
+	// distances[s * n + v]: distance from s to v, POSITIVE_INFINITY if there is
+	// no route
+	private final DoubleBuffer distances;
+	// predecessors[s * n + v]: father of v on the route from s, -1 for s itself
+	// and for nodes s does not reach
+	private final IntBuffer predecessors;
+
+	/**
+	 * Constructor
+	 *
+	 * @param graph
+	 *            the snapshot the table belongs to
+	 * @param distances
+	 *            the distances, row after row
+	 * @param predecessors
+	 *            the fathers, row after row
+	 */
+	DistanceOracle(CompactGraph graph, DoubleBuffer distances, IntBuffer predecessors) {
+		this.graph = graph;
+		this.n = graph.size();
+		if (distances.limit() != (long) n * n || predecessors.limit() != (long) n * n)
+			throw new IllegalArgumentException("Oracle table does not fit the graph");
+		this.distances = distances;
+		this.predecessors = predecessors;
+	}
+
+	/**
+	 * Searches from every node of the graph
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param waiting
+	 *            true for the time search (the waiting times of the nodes are
+	 *            added)
+	 * @param pool
+	 *            the pool the rows are searched on
+	 * @return the table for the current snapshot of the graph
+	 */
+	static DistanceOracle compute(Dijkstra<?> graph, boolean waiting, ForkJoinPool pool) {
+		CompactGraph snapshot = graph.freeze();
+		int n = snapshot.size();
+		if ((long) n * n > Integer.MAX_VALUE / 8)
+			throw new IllegalStateException("The graph is too big for an all-pairs table: " + n + " nodes");
+
+		double[] distances = new double[n * n];
+		int[] predecessors = new int[n * n];
+		pool.invoke(new RowTask(graph, snapshot, waiting, distances, predecessors, 0, n));
+		return new DistanceOracle(snapshot, DoubleBuffer.wrap(distances), IntBuffer.wrap(predecessors));
+	}
+
+	/**
+	 * Searches the rows from first (inclusive) to last (exclusive), big blocks are
+	 * split in halves
+	 */
+	private static final class RowTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Dijkstra<?> graph;
+		private final CompactGraph snapshot;
+		private final boolean waiting;
+		private final double[] distances;
+		private final int[] predecessors;
+		private final int first;
+		private final int last;
+
+		RowTask(Dijkstra<?> graph, CompactGraph snapshot, boolean waiting, double[] distances, int[] predecessors,
+				int first, int last) {
+			this.graph = graph;
+			this.snapshot = snapshot;
+			this.waiting = waiting;
+			this.distances = distances;
+			this.predecessors = predecessors;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute() {
+			if (last - first > 4) {
+				int middle = (first + last) >>> 1;
+				invokeAll(new RowTask(graph, snapshot, waiting, distances, predecessors, first, middle),
+						new RowTask(graph, snapshot, waiting, distances, predecessors, middle, last));
+				return;
+			}
+
+			int n = snapshot.size();
+			for (int source = first; source < last; source++) {
+				SearchWorkspace workspace = graph.search(snapshot, source, null, waiting);
+				int row = source * n;
+				for (int v = 0; v < n; v++) {
+					boolean reached = workspace.reached(v);
+					distances[row + v] = reached ? workspace.distance(v) : Double.POSITIVE_INFINITY;
+					predecessors[row + v] = reached ? workspace.predecessor(v) : -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param snapshot
+	 *            the current snapshot of a graph
+	 * @return true if the table was computed for exactly this snapshot
+	 */
+	boolean belongsTo(CompactGraph snapshot) {
+		return graph == snapshot;
+	}
+
+	/**
+	 * Looks the route up
+	 *
+	 * @param source
+	 *            id of the source node
+	 * @param destination
+	 *            id of the destination node
+	 * @return the route or NO_PATH
+	 */
+	RouteResult route(int source, int destination) {
+		int row = source * n;
+		double distance = distances.get(row + destination);
+		if (distance == Double.POSITIVE_INFINITY)
+			return RouteResult.failed(Navigation.NO_PATH);
+
+		int count = 0;
+		for (int v = destination; v >= 0; v = predecessors.get(row + v)) {
+			// a route never visits a node twice (only a broken table can loop)
+			if (++count > n)
+				throw new IllegalStateException("Broken all-pairs table: the fathers form a loop");
+		}
+		int[] path = new int[count];
+		for (int v = destination; v >= 0; v = predecessors.get(row + v)) {
+			path[--count] = v;
+		}
+		return new RouteResult(RouteResult.FOUND, distance, path);
+	}
+
+	/*
+	 * Read-only views for writing the table to a snapshot file
+	 */
+
+	DoubleBuffer distances() {
+		return distances.asReadOnlyBuffer();
+	}
+
+	IntBuffer predecessors() {
+		return predecessors.asReadOnlyBuffer();
+	}
+}
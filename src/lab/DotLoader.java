@@ -0,0 +1,314 @@
+package lab;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming loader for maps in the Dot format. The file is memory-mapped
+ * chunk by chunk (so files bigger than 2 GB work as well) and scanned as bytes:
+ * every edge line (A -> B [label="10,90"];) and every waiting time line (A
+ * [label="A,5"];) goes straight into the distance and time graph, without
+ * building a String for the whole line. Every distinct node name is only
+ * decoded once.
+ * 
+ * Keeping the lines of the file (needed to print a map with the route marked
+ * bold) is optional.
+ * 
+ * @author thecr
+ *
+ */
+final class DotLoader {
+
+	//By default a chunk of 256 MB is mapped at a time
+	static final int DEFAULT_CHUNK_SIZE = 1 << 28;
+
+	private final boolean keepLines;
+	private final int chunkSize;
+
+	// the lines of the file and which edge each of them describes
+	private final MapLines.Builder lines = new MapLines.Builder();
+	private final Dijkstra<String> shortestRoute = new Dijkstra<String>();
+	private final Dijkstra<String> fastestRoute = new Dijkstra<String>();
+
+	// decoded node names, open addressing over the hash of their bytes
+	private byte[][] nameBytes = new byte[1024][];
+	private String[] names = new String[1024];
+	private int nameCount;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param keepLines
+	 *            true if the lines of the file should be kept
+	 * @param chunkSize
+	 *            number of bytes mapped at a time
+	 */
+	DotLoader(boolean keepLines, int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunk size has to be positive: " + chunkSize);
+		this.keepLines = keepLines;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Loads a map with the default chunk size
+	 * 
+	 * @param filename
+	 *            name of the file containing the map
+	 * @param keepLines
+	 *            true if the lines of the file should be kept
+	 * @return the loaded map
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static RoadMap load(String filename, boolean keepLines) throws IOException {
+		return new DotLoader(keepLines, DEFAULT_CHUNK_SIZE).read(filename);
+	}
+
+	/**
+	 * Maps the file chunk by chunk and interprets every complete line in it. A
+	 * chunk always ends after the last line break in it, the rest is mapped again
+	 * with the next chunk
+	 * 
+	 * @param filename
+	 *            name of the file containing the map
+	 * @return the loaded map
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	RoadMap read(String filename) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long position = 0;
+			int window = chunkSize;
+
+			while (position < size) {
+				int length = (int) Math.min(window, size - position);
+				MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+				boolean last = position + length == size;
+
+				// the chunk ends after its last line break (unless it is the end of the file)
+				int end = length;
+				if (!last) {
+					while (end > 0 && chunk.get(end - 1) != '\n') {
+						end--;
+					}
+					if (end == 0) {
+						// a single line longer than the chunk: maps a bigger chunk
+						if (window == Integer.MAX_VALUE)
+							throw new IOException("Line longer than 2 GB at byte " + position);
+						window = (int) Math.min((long) window * 2, Integer.MAX_VALUE);
+						continue;
+					}
+				}
+
+				int start = 0;
+				for (int i = 0; i < end; i++) {
+					if (chunk.get(i) == '\n') {
+						line(chunk, start, i);
+						start = i + 1;
+					}
+				}
+				if (start < end) {
+					line(chunk, start, end);
+				}
+
+				position += end;
+				window = chunkSize;
+			}
+		}
+
+		return new RoadMap(lines.build(), shortestRoute, fastestRoute);
+	}
+
+	/**
+	 * Interprets one line of the file
+	 * 
+	 * @param chunk
+	 *            the mapped chunk containing the line
+	 * @param start
+	 *            position of the first byte of the line
+	 * @param end
+	 *            position after the last byte of the line (without the line
+	 *            break)
+	 */
+	private void line(MappedByteBuffer chunk, int start, int end) {
+		if (end > start && chunk.get(end - 1) == '\r')
+			end--;
+
+		String text = keepLines ? decode(chunk, start, end) : null;
+
+		// index of different "signs" in the line, these are helpful for reading the
+		// content of each line
+		int arrow = -1;
+		int sign = -1;
+		int sign2 = -1;
+		int dividingComma = -1;
+		int lastComma = -1;
+		int dash = -1;
+		int bracket = -1;
+
+		for (int i = start; i < end; i++) {
+			byte b = chunk.get(i);
+			switch (b) {
+			case '{':
+			case '}':
+				// first and last line are simply ignored (but remembered for drawing)
+				if (text != null)
+					lines.addFrame(text);
+				return;
+			case '>':
+				if (arrow < 0)
+					arrow = i;
+				break;
+			case '"':
+				if (sign < 0)
+					sign = i;
+				sign2 = i;
+				break;
+			case ',':
+				if (dividingComma < 0)
+					dividingComma = i;
+				lastComma = i;
+				break;
+			case '-':
+				if (dash < 0)
+					dash = i;
+				break;
+			case '[':
+				if (bracket < 0)
+					bracket = i;
+				break;
+			default:
+				break;
+			}
+		}
+
+		// empty lines (or lines without attributes) do not describe anything
+		if (bracket < 0) {
+			keep(text);
+			return;
+		}
+
+		// Line of this format: A -> B [label="10,90"];
+		if (arrow >= 0) {
+			String from = name(chunk, start, dash - 1);
+			String to = name(chunk, arrow + 2, bracket - 1);
+
+			int length = number(chunk, sign + 1, dividingComma);
+			int speed = number(chunk, dividingComma + 1, sign2);
+
+			shortestRoute.addEdge(from, to, length);
+			fastestRoute.addEdge(from, to, ((double) length / (double) speed * 60));
+			// the line is found again by the ids of the edge when a route is drawn
+			if (text != null)
+				lines.addEdge(text, shortestRoute.findNodeId(from), shortestRoute.findNodeId(to));
+		}
+		// Line of this format: A [label="A,5"];
+		else {
+			String name = name(chunk, start, bracket - 1);
+			int waitingTime = number(chunk, lastComma + 1, sign2);
+
+			// the node is added to both graphs so they keep the same node ids
+			shortestRoute.addNode(name);
+			fastestRoute.setWaitingTime(name, waitingTime);
+			keep(text);
+		}
+	}
+
+	private void keep(String text) {
+		if (text != null)
+			lines.add(text);
+	}
+
+	/**
+	 * Reads a non-negative decimal number
+	 */
+	private static int number(MappedByteBuffer chunk, int start, int end) {
+		if (start >= end)
+			throw new NumberFormatException("Missing number at byte " + start);
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = chunk.get(i) - '0';
+			if (digit < 0 || digit > 9)
+				throw new NumberFormatException("Not a number at byte " + i);
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	private static String decode(MappedByteBuffer chunk, int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = chunk.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the node name stored in the given bytes, it is only decoded the
+	 * first time it shows up
+	 */
+	private String name(MappedByteBuffer chunk, int start, int end) {
+		int hash = 1;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + chunk.get(i);
+		}
+
+		int mask = names.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			byte[] candidate = nameBytes[slot];
+			if (candidate == null) {
+				byte[] bytes = new byte[end - start];
+				for (int i = 0; i < bytes.length; i++) {
+					bytes[i] = chunk.get(start + i);
+				}
+				String name = new String(bytes, StandardCharsets.UTF_8);
+				nameBytes[slot] = bytes;
+				names[slot] = name;
+				if (++nameCount * 2 > names.length)
+					grow();
+				return name;
+			}
+			if (equals(candidate, chunk, start, end))
+				return names[slot];
+		}
+	}
+
+	private static boolean equals(byte[] candidate, MappedByteBuffer chunk, int start, int end) {
+		if (candidate.length != end - start)
+			return false;
+		for (int i = 0; i < candidate.length; i++) {
+			if (candidate[i] != chunk.get(start + i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Doubles the name table
+	 */
+	private void grow() {
+		byte[][] oldBytes = nameBytes;
+		String[] oldNames = names;
+		nameBytes = new byte[oldBytes.length * 2][];
+		names = new String[oldNames.length * 2];
+		int mask = names.length - 1;
+		for (int i = 0; i < oldBytes.length; i++) {
+			if (oldBytes[i] == null)
+				continue;
+			// same hash as in name()
+			int slot = Arrays.hashCode(oldBytes[i]) & mask;
+			while (nameBytes[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			nameBytes[slot] = oldBytes[i];
+			names[slot] = oldNames[i];
+		}
+	}
+}
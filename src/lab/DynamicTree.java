@@ -0,0 +1,249 @@
+package lab;
+
+import java.util.Arrays;
+
+/**
+ * Shortest path tree of one source which is kept up to date while the graph
+ * changes (dynamic single-source shortest paths, in the way of Ramalingam and
+ * Reps). After some arcs changed their weights only the part of the tree the
+ * change affects is searched again, so an update costs about as much as the
+ * change is big instead of as much as the graph is big:
+ *
+ * - an arc of the tree which became more expensive: the subtree below it loses
+ * its distances. Every node of the subtree starts with the best way in from
+ * outside the subtree.
+ *
+ * - an arc which became cheaper (or is new): if it now leads to its end node on
+ * a shorter way, the end node starts with that way.
+ *
+ * Then one Dijkstra search from all these start nodes settles them again and
+ * spreads every distance which went down; it stops where nothing improves any
+ * more.
+ *
+ * For the time metric the waiting time of a node is added to every arc leaving
+ * it (but not at the source), a changed waiting time is a change of all arcs
+ * leaving the node.
+ *
+ * @author thecr
+ *
+ */
+final class DynamicTree {
+
+	/**
+	 * The graph the tree is repaired on, by node ids
+	 */
+	interface Graph {
+		int size();
+
+		int outDegree(int node);
+
+		int outNeighbour(int node, int i);
+
+		int inDegree(int node);
+
+		int inNeighbour(int node, int i);
+
+		// weight of the arc from -> to (which has to exist)
+		double weight(int from, int to);
+
+		double waitingTime(int node);
+	}
+
+	private final int source;
+	private final boolean waiting;
+	private double[] distance;
+	private int[] father;
+	// nodes whose distances are being searched again (only during a repair)
+	private boolean[] affected;
+	private IndexedHeap queue;
+
+	/**
+	 * Constructor, takes the tree of a complete search from the source
+	 *
+	 * @param source
+	 *            id of the source
+	 * @param waiting
+	 *            true for the time metric (the waiting times of the nodes are
+	 *            added)
+	 * @param workspace
+	 *            workspace of a search from the source on the whole graph
+	 * @param n
+	 *            number of nodes of the graph
+	 */
+	DynamicTree(int source, boolean waiting, SearchWorkspace workspace, int n) {
+		this.source = source;
+		this.waiting = waiting;
+		distance = new double[n];
+		father = new int[n];
+		for (int v = 0; v < n; v++) {
+			boolean reached = workspace.reached(v);
+			distance[v] = reached ? workspace.distance(v) : Double.POSITIVE_INFINITY;
+			father[v] = reached ? workspace.predecessor(v) : -1;
+		}
+		affected = new boolean[n];
+		queue = new IndexedHeap(n, 4);
+	}
+
+	/**
+	 * @return id of the source
+	 */
+	int source() {
+		return source;
+	}
+
+	/**
+	 * Weight of an arc in the metric of the tree
+	 */
+	private double cost(Graph graph, int from, int to) {
+		double weight = graph.weight(from, to);
+		return waiting && from != source ? weight + graph.waitingTime(from) : weight;
+	}
+
+	/**
+	 * Makes room for nodes which were added to the graph (they are not reached
+	 * yet)
+	 */
+	private void grow(int n) {
+		int old = distance.length;
+		if (n <= old)
+			return;
+		distance = Arrays.copyOf(distance, n);
+		father = Arrays.copyOf(father, n);
+		affected = Arrays.copyOf(affected, n);
+		Arrays.fill(distance, old, n, Double.POSITIVE_INFINITY);
+		Arrays.fill(father, old, n, -1);
+		queue = new IndexedHeap(n, 4);
+	}
+
+	/**
+	 * Repairs the tree after arcs of the graph changed. The graph already has the
+	 * new weights
+	 *
+	 * @param graph
+	 *            the changed graph
+	 * @param tails
+	 *            start nodes of the changed (or new) arcs
+	 * @param heads
+	 *            end nodes of the changed arcs
+	 * @param count
+	 *            number of changed arcs
+	 */
+	synchronized void repair(Graph graph, int[] tails, int[] heads, int count) {
+		grow(graph.size());
+
+		// the arcs of the tree which became more expensive: their subtrees lose their
+		// distances...
+		int[] subtree = new int[16];
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			int u = tails[i];
+			int v = heads[i];
+			if (father[v] == u && !affected[v] && distance[u] + cost(graph, u, v) > distance[v]) {
+				int first = size;
+				subtree = add(subtree, size++, v);
+				affected[v] = true;
+				// the subtree below v: all nodes whose fathers are in it
+				for (int j = first; j < size; j++) {
+					int node = subtree[j];
+					for (int k = 0; k < graph.outDegree(node); k++) {
+						int child = graph.outNeighbour(node, k);
+						if (father[child] == node && !affected[child]) {
+							subtree = add(subtree, size++, child);
+							affected[child] = true;
+						}
+					}
+				}
+			}
+		}
+		for (int j = 0; j < size; j++) {
+			distance[subtree[j]] = Double.POSITIVE_INFINITY;
+			father[subtree[j]] = -1;
+		}
+
+		// ...and start with their best way in from the rest of the tree
+		queue.clear();
+		for (int j = 0; j < size; j++) {
+			int node = subtree[j];
+			for (int k = 0; k < graph.inDegree(node); k++) {
+				int from = graph.inNeighbour(node, k);
+				if (!affected[from])
+					relax(graph, from, node);
+			}
+		}
+		for (int j = 0; j < size; j++) {
+			affected[subtree[j]] = false;
+		}
+		// the arcs which became cheaper start where they lead to
+		for (int i = 0; i < count; i++) {
+			relax(graph, tails[i], heads[i]);
+		}
+
+		// every node whose distance went down passes it on (a node of a subtree may
+		// end up below its old distance and so improve nodes outside the subtree)
+		while (!queue.isEmpty()) {
+			int node = queue.poll();
+			for (int k = 0; k < graph.outDegree(node); k++) {
+				relax(graph, node, graph.outNeighbour(node, k));
+			}
+		}
+	}
+
+	/**
+	 * Takes the arc if it leads to its end node on a shorter way
+	 */
+	private void relax(Graph graph, int from, int to) {
+		if (distance[from] == Double.POSITIVE_INFINITY)
+			return;
+		double total = distance[from] + cost(graph, from, to);
+		if (total < distance[to]) {
+			distance[to] = total;
+			father[to] = from;
+			queue.insertOrDecrease(to, total);
+		}
+	}
+
+	private static int[] add(int[] array, int at, int value) {
+		if (at == array.length)
+			array = Arrays.copyOf(array, array.length * 2);
+		array[at] = value;
+		return array;
+	}
+
+	/**
+	 * Reads the route to the destination out of the tree
+	 *
+	 * @param destination
+	 *            id of the destination
+	 * @return the route or NO_PATH
+	 */
+	synchronized RouteResult route(int destination) {
+		if (destination >= distance.length || distance[destination] == Double.POSITIVE_INFINITY)
+			return RouteResult.failed(Navigation.NO_PATH);
+		int count = 0;
+		for (int v = destination; v >= 0; v = father[v]) {
+			count++;
+		}
+		int[] path = new int[count];
+		for (int v = destination; v >= 0; v = father[v]) {
+			path[--count] = v;
+		}
+		return new RouteResult(RouteResult.FOUND, distance[destination], path);
+	}
+
+	/**
+	 * @return a copy of the father of every node (-1 for the source and for nodes
+	 *         which are not reached)
+	 */
+	synchronized int[] fathers() {
+		return father.clone();
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @return the distance from the source, POSITIVE_INFINITY if it is not reached
+	 */
+	synchronized double distance(int node) {
+		return node < distance.length ? distance[node] : Double.POSITIVE_INFINITY;
+	}
+}
@@ -0,0 +1,46 @@
+package lab;
+
+/**
+ * The frontier of a search: the nodes which have been reached but are not
+ * completed yet, ordered by their tentative distance. Nodes are identified by
+ * their dense id.
+ * 
+ * @author thecr
+ *
+ */
+interface Frontier {
+
+	/**
+	 * Puts the node into the frontier or, if it is already in there, lowers its
+	 * key
+	 * 
+	 * @param node
+	 *            id of the node
+	 * @param key
+	 *            new tentative distance of the node (never bigger than the old
+	 *            one)
+	 */
+	void insertOrDecrease(int node, double key);
+
+	/**
+	 * Removes the node with the smallest key
+	 * 
+	 * @return id of the removed node
+	 */
+	int poll();
+
+	/**
+	 * @return the smallest key in the frontier (the frontier must not be empty)
+	 */
+	double peekKey();
+
+	/**
+	 * @return true if there is no node left in the frontier
+	 */
+	boolean isEmpty();
+
+	/**
+	 * Removes all nodes so the frontier can be used for the next search
+	 */
+	void clear();
+}
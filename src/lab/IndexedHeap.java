@@ -0,0 +1,181 @@
+package lab;
+
+import java.util.Arrays;
+
+/**
+ * Position-indexed d-ary min heap over node ids. Every node remembers its
+ * position in the heap, so lowering the key of a node already in the heap
+ * (decrease-key) just moves it up, which costs O(log n) instead of the O(n)
+ * remove of java.util.PriorityQueue. Keys are stored as primitives, nothing is
+ * boxed.
+ * 
+ * A higher arity makes the heap flatter (cheaper decrease-key, which is the
+ * most frequent operation of Dijkstra) at the price of more comparisons per
+ * poll.
+ * 
+ * @author thecr
+ *
+ */
+final class IndexedHeap implements Frontier {
+
+	private final int arity;
+	// node ids in heap order
+	private int[] heap;
+	// position of every node in the heap, -1 if the node is not in the heap
+	private int[] position;
+	// key of every node in the heap
+	private double[] keys;
+	private int size;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity
+	 *            number of nodes (node ids have to be smaller than this)
+	 * @param arity
+	 *            number of children of every heap node (at least 2)
+	 */
+	IndexedHeap(int capacity, int arity) {
+		if (arity < 2)
+			throw new IllegalArgumentException("arity has to be at least 2: " + arity);
+		this.arity = arity;
+		heap = new int[capacity];
+		position = new int[capacity];
+		keys = new double[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * @return the number of children of every heap node
+	 */
+	int arity() {
+		return arity;
+	}
+
+	/**
+	 * @return the number of nodes the heap can hold
+	 */
+	int capacity() {
+		return position.length;
+	}
+
+	@Override
+	public void insertOrDecrease(int node, double key) {
+		int at = position[node];
+		if (at < 0) {
+			at = size++;
+			heap[at] = node;
+			position[node] = at;
+		} else if (key >= keys[node]) {
+			return;
+		}
+		keys[node] = key;
+		siftUp(at);
+	}
+
+	@Override
+	public int poll() {
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0) {
+			int last = heap[size];
+			heap[0] = last;
+			position[last] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	@Override
+	public double peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @return true if the node is in the heap at the moment
+	 */
+	boolean contains(int node) {
+		return position[node] >= 0;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the number of nodes in the heap
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Only the nodes still in the heap are touched, so this costs O(size) and not
+	 * O(capacity)
+	 */
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Moves the node at the given position up until its father has a smaller key
+	 */
+	private void siftUp(int at) {
+		int node = heap[at];
+		double key = keys[node];
+		while (at > 0) {
+			int parentAt = (at - 1) / arity;
+			int parent = heap[parentAt];
+			if (keys[parent] <= key)
+				break;
+			heap[at] = parent;
+			position[parent] = at;
+			at = parentAt;
+		}
+		heap[at] = node;
+		position[node] = at;
+	}
+
+	/**
+	 * Moves the node at the given position down until all of its children have a
+	 * bigger key
+	 */
+	private void siftDown(int at) {
+		int node = heap[at];
+		double key = keys[node];
+		while (true) {
+			int firstChild = at * arity + 1;
+			if (firstChild >= size)
+				break;
+			int lastChild = Math.min(firstChild + arity, size);
+
+			// finds the child with the smallest key
+			int minAt = firstChild;
+			double minKey = keys[heap[firstChild]];
+			for (int c = firstChild + 1; c < lastChild; c++) {
+				double childKey = keys[heap[c]];
+				if (childKey < minKey) {
+					minKey = childKey;
+					minAt = c;
+				}
+			}
+			if (minKey >= key)
+				break;
+
+			int child = heap[minAt];
+			heap[at] = child;
+			position[child] = at;
+			at = minAt;
+		}
+		heap[at] = node;
+		position[node] = at;
+	}
+}
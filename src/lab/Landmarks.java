@@ -0,0 +1,345 @@
+package lab;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Landmark tables for the A* search (ALT: A*, landmarks and the triangle
+ * inequality). Our maps have no coordinates, so instead of a geometric estimate
+ * the search uses a few landmark nodes L, for which the distances d(L, v) from
+ * L to every node and d(v, L) from every node to L are known. By the triangle
+ * inequality
+ *
+ * <pre>
+ * d(v, t) &gt;= d(L, t) - d(L, v)   and   d(v, t) &gt;= d(v, L) - d(t, L)
+ * </pre>
+ *
+ * so the biggest of these differences is a lower bound of the remaining way
+ * from v to the destination t, which is all A* needs.
+ *
+ * For the time metric the tables are computed with the waiting time of a node
+ * added to every edge leaving it, so a bound covers the waiting times on the
+ * way as well.
+ *
+ * The tables belong to one snapshot of the graph; once the graph changes they
+ * are no longer used. Tables of nodes a landmark cannot reach (or cannot be
+ * reached from) hold infinity and do not contribute to the bound.
+ *
+ * @author thecr
+ *
+ */
+final class Landmarks {
+
+	// the snapshot the tables were computed for
+	private final CompactGraph graph;
+	// ids of the landmark nodes
+	private final IntBuffer landmarks;
+	// from[k * n + v] = d(landmark k, v)
+	private final DoubleBuffer from;
+	// to[k * n + v] = d(v, landmark k)
+	private final DoubleBuffer to;
+
+	/**
+	 * Constructor
+	 *
+	 * @param graph
+	 *            the snapshot the tables belong to
+	 * @param landmarks
+	 *            ids of the landmark nodes
+	 * @param from
+	 *            distances from every landmark to every node
+	 * @param to
+	 *            distances from every node to every landmark
+	 */
+	Landmarks(CompactGraph graph, IntBuffer landmarks, DoubleBuffer from, DoubleBuffer to) {
+		int expected = landmarks.limit() * graph.size();
+		if (from.limit() != expected || to.limit() != expected)
+			throw new IllegalArgumentException("Landmark tables do not fit the graph");
+		this.graph = graph;
+		this.landmarks = landmarks;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Picks the landmarks and computes their tables
+	 *
+	 * @param graph
+	 *            the snapshot
+	 * @param waiting
+	 *            true if the waiting times of the nodes have to be added (time
+	 *            metric)
+	 * @param count
+	 *            number of landmarks (at most the number of nodes)
+	 * @param selection
+	 *            how the landmarks are picked
+	 * @return the landmarks
+	 */
+	static Landmarks compute(CompactGraph graph, boolean waiting, int count, Dijkstra.LandmarkSelection selection) {
+		if (count < 0)
+			throw new IllegalArgumentException("count has to be at least 0: " + count);
+		int n = graph.size();
+		count = Math.min(count, n);
+
+		int[] chosen = new int[count];
+		double[] from = new double[count * n];
+		double[] to = new double[count * n];
+		Tree tree = new Tree(n);
+		Random random = new Random(n);
+
+		for (int k = 0; k < count; k++) {
+			int landmark = -1;
+			if (selection == Dijkstra.LandmarkSelection.AVOID && k > 0)
+				landmark = avoid(graph, waiting, chosen, k, from, to, tree, random.nextInt(n));
+			if (landmark < 0)
+				landmark = farthest(graph, waiting, chosen, k, from, tree);
+			chosen[k] = landmark;
+
+			tree.grow(graph, waiting, false, landmark);
+			tree.copyDistances(from, k * n);
+			tree.grow(graph.reverse(), waiting, true, landmark);
+			tree.copyDistances(to, k * n);
+		}
+		return new Landmarks(graph, IntBuffer.wrap(chosen), DoubleBuffer.wrap(from), DoubleBuffer.wrap(to));
+	}
+
+	/**
+	 * Farthest-first selection: the node farthest away from all landmarks picked
+	 * so far (nodes none of them reaches count as infinitely far, so every part of
+	 * a disconnected map gets a landmark). The first landmark is the node farthest
+	 * from node 0
+	 */
+	private static int farthest(CompactGraph graph, boolean waiting, int[] chosen, int k, double[] from, Tree tree) {
+		int n = graph.size();
+		double[] nearest = new double[n];
+		if (k == 0) {
+			tree.grow(graph, waiting, false, 0);
+			tree.copyDistances(nearest, 0);
+		} else {
+			Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+			for (int i = 0; i < k; i++) {
+				for (int v = 0; v < n; v++) {
+					nearest[v] = Math.min(nearest[v], from[i * n + v]);
+				}
+			}
+		}
+
+		int best = -1;
+		for (int v = 0; v < n; v++) {
+			if (!contains(chosen, k, v) && (best < 0 || nearest[v] > nearest[best]))
+				best = v;
+		}
+		return best;
+	}
+
+	/**
+	 * Avoid selection (Goldberg and Werneck): grows a shortest path tree from a
+	 * random root and weights every node with how badly the current landmarks
+	 * bound its distance from the root. Subtrees which already contain a landmark
+	 * weigh nothing. Starting at the heaviest node the tree is descended along the
+	 * heaviest children down to a leaf, which becomes the new landmark
+	 *
+	 * @return the new landmark or -1 if every part of the tree is covered already
+	 */
+	private static int avoid(CompactGraph graph, boolean waiting, int[] chosen, int k, double[] from, double[] to,
+			Tree tree, int root) {
+		int n = graph.size();
+		tree.grow(graph, waiting, false, root);
+
+		// weight of every node: distance from the root minus the lower bound
+		double[] size = new double[n];
+		for (int v = 0; v < n; v++) {
+			if (tree.distance[v] == Double.POSITIVE_INFINITY)
+				continue;
+			double bound = 0;
+			for (int i = 0; i < k; i++) {
+				bound = Math.max(bound, difference(from[i * n + v], from[i * n + root]));
+				bound = Math.max(bound, difference(to[i * n + root], to[i * n + v]));
+			}
+			size[v] = tree.distance[v] - bound;
+		}
+
+		// sizes of the subtrees (children are settled after their fathers)
+		boolean[] covered = new boolean[n];
+		for (int i = 0; i < k; i++) {
+			covered[chosen[i]] = true;
+		}
+		for (int i = tree.settled - 1; i > 0; i--) {
+			int v = tree.order[i];
+			int father = tree.father[v];
+			if (covered[v]) {
+				size[v] = 0;
+				covered[father] = true;
+			}
+			size[father] += size[v];
+		}
+		if (covered[root])
+			size[root] = 0;
+
+		int heaviest = root;
+		for (int i = 0; i < tree.settled; i++) {
+			if (size[tree.order[i]] > size[heaviest])
+				heaviest = tree.order[i];
+		}
+		if (size[heaviest] <= 0)
+			return -1;
+
+		// children of every node of the tree as compressed rows
+		int[] offsets = new int[n + 1];
+		for (int i = 1; i < tree.settled; i++) {
+			offsets[tree.father[tree.order[i]] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] children = new int[Math.max(0, tree.settled - 1)];
+		int[] next = Arrays.copyOf(offsets, n);
+		for (int i = 1; i < tree.settled; i++) {
+			int v = tree.order[i];
+			children[next[tree.father[v]]++] = v;
+		}
+
+		int leaf = heaviest;
+		while (offsets[leaf] < offsets[leaf + 1]) {
+			int child = children[offsets[leaf]];
+			for (int c = offsets[leaf] + 1; c < offsets[leaf + 1]; c++) {
+				if (size[children[c]] > size[child])
+					child = children[c];
+			}
+			if (size[child] <= 0)
+				break;
+			leaf = child;
+		}
+		return contains(chosen, k, leaf) ? -1 : leaf;
+	}
+
+	private static boolean contains(int[] chosen, int k, int node) {
+		for (int i = 0; i < k; i++) {
+			if (chosen[i] == node)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return a - b, or 0 if one of them is infinite (no bound)
+	 */
+	private static double difference(double a, double b) {
+		if (a == Double.POSITIVE_INFINITY || b == Double.POSITIVE_INFINITY)
+			return 0;
+		return a - b;
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @param destination
+	 *            id of the destination
+	 * @return a lower bound of the distance from node to destination
+	 */
+	double lowerBound(int node, int destination) {
+		int n = graph.size();
+		double bound = 0;
+		for (int k = 0, base = 0; k < landmarks.limit(); k++, base += n) {
+			bound = Math.max(bound, difference(from.get(base + destination), from.get(base + node)));
+			bound = Math.max(bound, difference(to.get(base + node), to.get(base + destination)));
+		}
+		return bound;
+	}
+
+	/**
+	 * @param snapshot
+	 *            the current snapshot of a graph
+	 * @return true if the tables were computed for exactly this snapshot
+	 */
+	boolean belongsTo(CompactGraph snapshot) {
+		return graph == snapshot;
+	}
+
+	/**
+	 * @return the number of landmarks
+	 */
+	int count() {
+		return landmarks.limit();
+	}
+
+	/**
+	 * @param k
+	 *            number of the landmark
+	 * @return id of the landmark node
+	 */
+	int landmark(int k) {
+		return landmarks.get(k);
+	}
+
+	/*
+	 * Read-only views for writing the tables to a snapshot file
+	 */
+
+	IntBuffer landmarks() {
+		return landmarks.asReadOnlyBuffer();
+	}
+
+	DoubleBuffer from() {
+		return from.asReadOnlyBuffer();
+	}
+
+	DoubleBuffer to() {
+		return to.asReadOnlyBuffer();
+	}
+
+	/**
+	 * A complete shortest path tree (one-to-all search), reused for all the
+	 * searches of the preprocessing
+	 */
+	private static final class Tree {
+		final double[] distance;
+		final int[] father;
+		// nodes in the order they were settled, settled is their number
+		final int[] order;
+		int settled;
+		private final IndexedHeap queue;
+
+		Tree(int n) {
+			distance = new double[n];
+			father = new int[n];
+			order = new int[n];
+			queue = new IndexedHeap(n, 4);
+		}
+
+		/**
+		 * Grows the tree from the root. On the reverse graph the waiting time of the
+		 * node an edge leads to is added (that is where the original edge starts)
+		 */
+		void grow(CompactGraph graph, boolean waiting, boolean reverse, int root) {
+			Arrays.fill(distance, Double.POSITIVE_INFINITY);
+			Arrays.fill(father, -1);
+			settled = 0;
+			queue.clear();
+
+			distance[root] = 0;
+			queue.insertOrDecrease(root, 0);
+			while (!queue.isEmpty()) {
+				int node = queue.poll();
+				order[settled++] = node;
+				double wait = waiting && !reverse ? graph.waitingTime(node) : 0;
+				for (int e = graph.firstEdge(node); e < graph.lastEdge(node); e++) {
+					int next = graph.target(e);
+					double total = distance[node] + graph.weight(e) + wait
+							+ (waiting && reverse ? graph.waitingTime(next) : 0);
+					if (total < distance[next]) {
+						distance[next] = total;
+						father[next] = node;
+						queue.insertOrDecrease(next, total);
+					}
+				}
+			}
+		}
+
+		void copyDistances(double[] table, int offset) {
+			System.arraycopy(distance, 0, table, offset, distance.length);
+		}
+	}
+}
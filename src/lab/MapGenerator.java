@@ -0,0 +1,364 @@
+package lab;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Generates maps of any size in the Dot format read by Navigation:
+ *
+ * <pre>
+ * Digraph {
+ * P0 -> P1 [label="12,50"];
+ * ...
+ * P0 [label="P0,3"];
+ * ...
+ * }
+ * </pre>
+ *
+ * The points are called P0, P1, ... All connections exist in both directions
+ * (with the same length and speed), lengths are at least 1. The same topology,
+ * size and seed always give the same file. The map is written while it is
+ * generated, only the coordinates (random geometric) or the edge ends
+ * (scale-free) are kept, so maps with 10^7 points fit into a few hundred MB of
+ * heap.
+ *
+ * @author thecr
+ *
+ */
+public final class MapGenerator {
+
+	/*
+	 * GRID is a square grid with random lengths, RANDOM_GEOMETRIC connects points
+	 * thrown into a square which are close to each other, SCALE_FREE grows the map
+	 * by preferential attachment (a few points get very many connections), ROAD is
+	 * a grid of local streets with faster arterial roads on every ARTERIAL-th row
+	 * and column and a highway network connecting every HIGHWAY-th crossing
+	 */
+	public enum Topology {
+		GRID, RANDOM_GEOMETRIC, SCALE_FREE, ROAD
+	};
+
+	// average number of neighbours in the random geometric map
+	private static final double GEOMETRIC_DEGREE = 6;
+	// connections of every new point of the scale-free map
+	private static final int ATTACHMENTS = 2;
+	// distance of the arterial roads and of the highway crossings of ROAD
+	private static final int ARTERIAL = 8;
+	private static final int HIGHWAY = 64;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Topology topology;
+	private final int nodes;
+	private final long seed;
+
+	/**
+	 * Constructor
+	 *
+	 * @param topology
+	 *            the kind of map
+	 * @param nodes
+	 *            number of points (at least 2)
+	 * @param seed
+	 *            seed of the random numbers
+	 */
+	public MapGenerator(Topology topology, int nodes, long seed) {
+		if (nodes < 2)
+			throw new IllegalArgumentException("at least 2 points are needed: " + nodes);
+		this.topology = topology;
+		this.nodes = nodes;
+		this.seed = seed;
+	}
+
+	/**
+	 * @param index
+	 *            number of a point, 0 to nodes - 1
+	 * @return the name of the point in the generated map
+	 */
+	public static String pointName(int index) {
+		return "P" + index;
+	}
+
+	/**
+	 * Writes the map to a file (UTF-8)
+	 *
+	 * @param file
+	 *            the file, replaced if it exists
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void write(Path file) throws IOException {
+		try (BufferedWriter out = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+				BUFFER_SIZE)) {
+			writeTo(out);
+		}
+	}
+
+	/**
+	 * Writes the map. The writer is flushed but not closed
+	 *
+	 * @param out
+	 *            where the lines go
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(Writer out) throws IOException {
+		SplittableRandom random = new SplittableRandom(seed);
+		Lines lines = new Lines(out);
+		lines.line("Digraph {");
+		switch (topology) {
+		case GRID:
+			grid(lines, random);
+			break;
+		case RANDOM_GEOMETRIC:
+			randomGeometric(lines, random);
+			break;
+		case SCALE_FREE:
+			scaleFree(lines, random);
+			break;
+		case ROAD:
+			road(lines, random);
+			break;
+		}
+		// waiting times after the edges, like in the test files
+		for (int i = 0; i < nodes; i++) {
+			lines.node(i, waitingTime(i, random));
+		}
+		lines.line("}");
+		out.flush();
+	}
+
+	/*
+	 * Rows of side points, the last row may be shorter
+	 */
+	private void grid(Lines lines, SplittableRandom random) throws IOException {
+		int side = side();
+		for (int i = 0; i < nodes; i++) {
+			if ((i + 1) % side != 0 && i + 1 < nodes)
+				lines.road(i, i + 1, 1 + random.nextInt(100), 30 + 10 * random.nextInt(11));
+			if (i + side < nodes)
+				lines.road(i, i + side, 1 + random.nextInt(100), 30 + 10 * random.nextInt(11));
+		}
+	}
+
+	/*
+	 * The points are thrown into a square with one point per 25 km^2 on average
+	 * and all pairs closer than the radius are connected. The square is cut into
+	 * cells as wide as the radius, so only the neighbouring cells are searched. The
+	 * map is not necessarily connected
+	 */
+	private void randomGeometric(Lines lines, SplittableRandom random) throws IOException {
+		double width = Math.sqrt(nodes) * 5;
+		double radius = Math.sqrt(GEOMETRIC_DEGREE / (Math.PI * nodes)) * width;
+		float[] x = new float[nodes];
+		float[] y = new float[nodes];
+		for (int i = 0; i < nodes; i++) {
+			x[i] = (float) (random.nextDouble() * width);
+			y[i] = (float) (random.nextDouble() * width);
+		}
+
+		// counting sort of the points by cell
+		int cells = Math.max(1, (int) (width / radius));
+		int[] cellStart = new int[cells * cells + 1];
+		for (int i = 0; i < nodes; i++) {
+			cellStart[cell(x[i], width, cells) * cells + cell(y[i], width, cells) + 1]++;
+		}
+		for (int c = 0; c < cells * cells; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		int[] byCell = new int[nodes];
+		int[] fill = cellStart.clone();
+		for (int i = 0; i < nodes; i++) {
+			byCell[fill[cell(x[i], width, cells) * cells + cell(y[i], width, cells)]++] = i;
+		}
+
+		for (int i = 0; i < nodes; i++) {
+			int cx = cell(x[i], width, cells);
+			int cy = cell(y[i], width, cells);
+			for (int nx = Math.max(0, cx - 1); nx <= Math.min(cells - 1, cx + 1); nx++) {
+				for (int ny = Math.max(0, cy - 1); ny <= Math.min(cells - 1, cy + 1); ny++) {
+					int c = nx * cells + ny;
+					for (int k = cellStart[c]; k < cellStart[c + 1]; k++) {
+						int j = byCell[k];
+						// every pair once
+						if (j <= i)
+							continue;
+						double distance = Math.hypot(x[i] - x[j], y[i] - y[j]);
+						if (distance < radius)
+							lines.road(i, j, length(distance), 50 + 10 * random.nextInt(9));
+					}
+				}
+			}
+		}
+	}
+
+	private static int cell(float coordinate, double width, int cells) {
+		return Math.min(cells - 1, (int) (coordinate / width * cells));
+	}
+
+	/*
+	 * Barabasi-Albert: starts with a complete map of ATTACHMENTS + 1 points, every
+	 * further point is connected to ATTACHMENTS different points, picked with a
+	 * probability proportional to their number of connections (a random end of
+	 * all connections so far)
+	 */
+	private void scaleFree(Lines lines, SplittableRandom random) throws IOException {
+		int start = Math.min(nodes, ATTACHMENTS + 1);
+		long size = 2L * (start * (start - 1) / 2 + (long) (nodes - start) * ATTACHMENTS);
+		if (size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("too many points for a scale-free map: " + nodes);
+		int[] ends = new int[(int) size];
+		int count = 0;
+		for (int i = 0; i < start; i++) {
+			for (int j = i + 1; j < start; j++) {
+				lines.road(i, j, 1 + random.nextInt(100), 30 + 10 * random.nextInt(11));
+				ends[count++] = i;
+				ends[count++] = j;
+			}
+		}
+
+		int[] picked = new int[ATTACHMENTS];
+		for (int i = start; i < nodes; i++) {
+			int before = count;
+			for (int a = 0; a < ATTACHMENTS; a++) {
+				int target;
+				do {
+					target = ends[random.nextInt(before)];
+				} while (contains(picked, a, target));
+				picked[a] = target;
+				lines.road(i, target, 1 + random.nextInt(100), 30 + 10 * random.nextInt(11));
+				ends[count++] = i;
+				ends[count++] = target;
+			}
+		}
+	}
+
+	private static boolean contains(int[] values, int count, int value) {
+		for (int i = 0; i < count; i++) {
+			if (values[i] == value)
+				return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Grid of crossings 1 km apart: local streets at 30 to 50 km/h, arterial roads
+	 * at 70 to 100 km/h along every ARTERIAL-th row and column, and highways at 120
+	 * or 130 km/h straight from one HIGHWAY-th crossing to the next
+	 */
+	private void road(Lines lines, SplittableRandom random) throws IOException {
+		int side = side();
+		for (int i = 0; i < nodes; i++) {
+			int row = i / side;
+			int column = i % side;
+			if (column + 1 < side && i + 1 < nodes)
+				lines.road(i, i + 1, 1, row % ARTERIAL == 0 ? 70 + 10 * random.nextInt(4) : 30 + 10 * random.nextInt(3));
+			if (i + side < nodes)
+				lines.road(i, i + side, 1,
+						column % ARTERIAL == 0 ? 70 + 10 * random.nextInt(4) : 30 + 10 * random.nextInt(3));
+			if (row % HIGHWAY == 0 && column % HIGHWAY == 0) {
+				// the highway is a bit shorter than the streets, which wind
+				int length = length(HIGHWAY * (0.85 + 0.1 * random.nextDouble()));
+				if (column + HIGHWAY < side && i + HIGHWAY < nodes)
+					lines.road(i, i + HIGHWAY, length, 120 + 10 * random.nextInt(2));
+				if (i + HIGHWAY * side < nodes)
+					lines.road(i, i + HIGHWAY * side, length, 120 + 10 * random.nextInt(2));
+			}
+		}
+	}
+
+	/*
+	 * Traffic lights at the crossings of the arterial roads of ROAD, short waits
+	 * everywhere else
+	 */
+	private int waitingTime(int node, SplittableRandom random) {
+		if (topology == Topology.ROAD) {
+			int side = side();
+			if ((node / side) % ARTERIAL == 0 && (node % side) % ARTERIAL == 0)
+				return 2 + random.nextInt(5);
+			return random.nextInt(3);
+		}
+		return random.nextInt(10);
+	}
+
+	private int side() {
+		return (int) Math.ceil(Math.sqrt(nodes));
+	}
+
+	private static int length(double distance) {
+		return Math.max(1, (int) Math.round(distance));
+	}
+
+	/**
+	 * Writes the lines of the map, reusing one buffer for all of them
+	 */
+	private static final class Lines {
+		private final Writer out;
+		private final StringBuilder line = new StringBuilder(64);
+		private char[] chars = new char[64];
+
+		Lines(Writer out) {
+			this.out = out;
+		}
+
+		void line(String text) throws IOException {
+			out.write(text);
+			out.write('\n');
+		}
+
+		/*
+		 * from -> to and to -> from
+		 */
+		void road(int from, int to, int length, int speed) throws IOException {
+			edge(from, to, length, speed);
+			edge(to, from, length, speed);
+		}
+
+		// P0 -> P1 [label="12,50"];
+		private void edge(int from, int to, int length, int speed) throws IOException {
+			line.setLength(0);
+			line.append('P').append(from).append(" -> P").append(to).append(" [label=\"").append(length).append(',')
+					.append(speed).append("\"];\n");
+			write();
+		}
+
+		// P0 [label="P0,3"];
+		void node(int node, int waitingTime) throws IOException {
+			line.setLength(0);
+			line.append('P').append(node).append(" [label=\"P").append(node).append(',').append(waitingTime)
+					.append("\"];\n");
+			write();
+		}
+
+		private void write() throws IOException {
+			if (chars.length < line.length())
+				chars = new char[line.length() * 2];
+			line.getChars(0, line.length(), chars, 0);
+			out.write(chars, 0, line.length());
+		}
+	}
+
+	/**
+	 * Writes a map from the command line
+	 *
+	 * @param args
+	 *            topology (GRID, RANDOM_GEOMETRIC, SCALE_FREE or ROAD), number of
+	 *            points, seed and the name of the file
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 4) {
+			System.err.println("usage: MapGenerator GRID|RANDOM_GEOMETRIC|SCALE_FREE|ROAD points seed file");
+			System.exit(2);
+		}
+		new MapGenerator(Topology.valueOf(args[0]), Integer.parseInt(args[1]), Long.parseLong(args[2]))
+				.write(Paths.get(args[3]));
+	}
+}
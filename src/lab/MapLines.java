@@ -0,0 +1,328 @@
+package lab;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The lines of a map in the Dot format together with an index from every edge
+ * (ids of its start and end node) to the lines describing it. The lines are
+ * never changed; a route is drawn by looking the lines of its edges up and
+ * laying the bold versions of them over the lines, so drawing costs about as
+ * much as the route is long, no matter how big the map is, and any number of
+ * routes can be drawn at the same time.
+ *
+ * @author thecr
+ *
+ */
+final class MapLines {
+
+	private final List<String> lines;
+	// open addressing table: key of an edge (see Dijkstra.edgeKey) and the first
+	// line of the edge, -1 for a free slot
+	private final long[] keys;
+	private final int[] firstLine;
+	// next line of the same edge (if the map has the edge more than once), -1 at
+	// the end
+	private final int[] nextLine;
+	// all edge lines in the order of the map: the key of the edge and the line
+	private final long[] edgeKeys;
+	private final int[] edgeLines;
+	// the lines opening and closing the graph (Digraph { and }), in order
+	private final int[] frameLines;
+
+	private MapLines(List<String> lines, long[] keys, int[] firstLine, int[] nextLine, long[] edgeKeys,
+			int[] edgeLines, int[] frameLines) {
+		this.lines = Collections.unmodifiableList(lines);
+		this.keys = keys;
+		this.firstLine = firstLine;
+		this.nextLine = nextLine;
+		this.edgeKeys = edgeKeys;
+		this.edgeLines = edgeLines;
+		this.frameLines = frameLines;
+	}
+
+	/**
+	 * Collects the lines (and the edges they describe) one after the other
+	 */
+	static final class Builder {
+		private final List<String> lines = new ArrayList<String>();
+		private long[] edgeKeys = new long[16];
+		private int[] edgeLines = new int[16];
+		private int edgeCount;
+		private int[] frameLines = new int[2];
+		private int frameCount;
+
+		/**
+		 * Adds a line which does not describe an edge
+		 */
+		void add(String line) {
+			lines.add(line);
+		}
+
+		/**
+		 * Adds a line opening or closing the graph (with { or })
+		 */
+		void addFrame(String line) {
+			if (frameCount == frameLines.length)
+				frameLines = Arrays.copyOf(frameLines, frameCount * 2);
+			frameLines[frameCount++] = lines.size();
+			lines.add(line);
+		}
+
+		/**
+		 * Adds a line describing the edge from -> to
+		 */
+		void addEdge(String line, int from, int to) {
+			if (edgeCount == edgeKeys.length) {
+				edgeKeys = Arrays.copyOf(edgeKeys, edgeCount * 2);
+				edgeLines = Arrays.copyOf(edgeLines, edgeCount * 2);
+			}
+			edgeKeys[edgeCount] = key(from, to);
+			edgeLines[edgeCount] = lines.size();
+			edgeCount++;
+			lines.add(line);
+		}
+
+		/**
+		 * @return the number of lines so far
+		 */
+		int size() {
+			return lines.size();
+		}
+
+		MapLines build() {
+			int capacity = Integer.highestOneBit(Math.max(8, edgeCount * 2) - 1) << 1;
+			long[] keys = new long[capacity];
+			int[] firstLine = new int[capacity];
+			Arrays.fill(firstLine, -1);
+			int[] nextLine = new int[lines.size()];
+			Arrays.fill(nextLine, -1);
+
+			// backwards, so the lines of an edge end up chained in their order
+			for (int i = edgeCount - 1; i >= 0; i--) {
+				int slot = slot(keys, firstLine, edgeKeys[i]);
+				if (firstLine[slot] >= 0)
+					nextLine[edgeLines[i]] = firstLine[slot];
+				keys[slot] = edgeKeys[i];
+				firstLine[slot] = edgeLines[i];
+			}
+			return new MapLines(lines, keys, firstLine, nextLine, Arrays.copyOf(edgeKeys, edgeCount),
+					Arrays.copyOf(edgeLines, edgeCount), Arrays.copyOf(frameLines, frameCount));
+		}
+	}
+
+	private static long key(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @return the slot of the key, or the free slot where it belongs
+	 */
+	private static int slot(long[] keys, int[] firstLine, long key) {
+		int mask = keys.length - 1;
+		long hash = key * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (firstLine[slot] >= 0 && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * @return the lines of the map (unmodifiable)
+	 */
+	List<String> lines() {
+		return lines;
+	}
+
+	/**
+	 * @return numbers of the lines opening and closing the graph (Digraph { and
+	 *         }), sorted
+	 */
+	int[] frameLines() {
+		return frameLines.clone();
+	}
+
+	/**
+	 * @param from
+	 *            id of the node the edge starts at
+	 * @param to
+	 *            id of the node the edge goes to
+	 * @return the first line describing the edge, -1 if there is none
+	 */
+	int firstLineOf(int from, int to) {
+		return firstLine[slot(keys, firstLine, key(from, to))];
+	}
+
+	/**
+	 * @param line
+	 *            a line describing an edge
+	 * @return the next line describing the same edge, -1 if there is none
+	 */
+	int nextLineOf(int line) {
+		return nextLine[line];
+	}
+
+	/**
+	 * Gives edges new labels: the lines of the edges get the new text between the
+	 * quotes of label="...", everything else (all other lines, their order and
+	 * the rest of the edge lines) stays as it is. The lines which are not changed
+	 * are shared with this object, so this costs about as much as there are
+	 * changed edges (plus copying the references to the lines)
+	 *
+	 * @param from
+	 *            ids of the nodes the edges start at
+	 * @param to
+	 *            ids of the nodes the edges go to
+	 * @param labels
+	 *            the new labels, e.g. 22,100
+	 * @param count
+	 *            number of edges
+	 * @return the lines with the new labels (this object does not change)
+	 */
+	MapLines relabel(int[] from, int[] to, String[] labels, int count) {
+		ArrayList<String> changed = new ArrayList<String>(lines);
+		for (int i = 0; i < count; i++) {
+			for (int line = firstLineOf(from[i], to[i]); line >= 0; line = nextLine[line]) {
+				changed.set(line, label(changed.get(line), labels[i]));
+			}
+		}
+		return new MapLines(changed, keys, firstLine, nextLine, edgeKeys, edgeLines, frameLines);
+	}
+
+	/**
+	 * @param line
+	 *            an edge line
+	 * @param label
+	 *            the new label
+	 * @return the line with the new text in label="...", the line itself if it has
+	 *         no label
+	 */
+	static String label(String line, String label) {
+		int start = line.indexOf("label=\"");
+		if (start < 0)
+			return line;
+		start += "label=\"".length();
+		int end = line.indexOf('"', start);
+		if (end < 0)
+			return line;
+		return line.substring(0, start) + label + line.substring(end);
+	}
+
+	/**
+	 * @param line
+	 *            an edge line
+	 * @return the line with the edge marked bold
+	 */
+	static String bold(String line) {
+		return line.replace(";", "") + "[style = bold]" + ";";
+	}
+
+	/**
+	 * Finds the lines of all edges of a route
+	 *
+	 * @param path
+	 *            ids of the nodes of the route
+	 * @return numbers of the lines, sorted
+	 */
+	int[] routeLines(int[] path) {
+		int[] found = new int[Math.max(0, path.length - 1)];
+		int count = 0;
+		for (int i = 0; i + 1 < path.length; i++) {
+			for (int line = firstLineOf(path[i], path[i + 1]); line >= 0; line = nextLine[line]) {
+				if (count == found.length)
+					found = Arrays.copyOf(found, count * 2 + 1);
+				found[count++] = line;
+			}
+		}
+		found = Arrays.copyOf(found, count);
+		Arrays.sort(found);
+		return found;
+	}
+
+	/**
+	 * Finds the lines of all edges of a shortest path tree, in one pass over the
+	 * edge lines of the map
+	 *
+	 * @param fathers
+	 *            the father of every node in the tree (-1 for the root and for
+	 *            nodes which are not in the tree)
+	 * @return numbers of the lines, sorted
+	 */
+	int[] treeLines(int[] fathers) {
+		int[] found = new int[16];
+		int count = 0;
+		for (int i = 0; i < edgeKeys.length; i++) {
+			int from = (int) (edgeKeys[i] >>> 32);
+			int to = (int) edgeKeys[i];
+			if (to < fathers.length && fathers[to] == from) {
+				if (count == found.length)
+					found = Arrays.copyOf(found, count * 2);
+				found[count++] = edgeLines[i];
+			}
+		}
+		// the edge lines are in the order of the map, so these are sorted already
+		return Arrays.copyOf(found, count);
+	}
+
+	/**
+	 * Draws a route (or tree): a copy of the lines with the given lines marked
+	 * bold
+	 *
+	 * @param marked
+	 *            numbers of the lines to mark, sorted
+	 * @return the new list (the lines of the map stay as they are)
+	 */
+	ArrayList<String> render(int[] marked) {
+		ArrayList<String> copy = new ArrayList<String>(lines);
+		for (int line : marked) {
+			copy.set(line, bold(lines.get(line)));
+		}
+		return copy;
+	}
+
+	/**
+	 * Draws a route (or tree) without copying the lines: the bold edges are laid
+	 * over the lines of the map
+	 *
+	 * @param marked
+	 *            numbers of the lines to mark, sorted
+	 * @return an unmodifiable view of the map with the lines marked bold
+	 */
+	List<String> overlay(int[] marked) {
+		String[] bold = new String[marked.length];
+		for (int i = 0; i < marked.length; i++) {
+			bold[i] = bold(lines.get(marked[i]));
+		}
+		return new Overlay(lines, marked, bold);
+	}
+
+	/**
+	 * The lines of a map with some of them replaced
+	 */
+	private static final class Overlay extends AbstractList<String> {
+		private final List<String> base;
+		private final int[] marked;
+		private final String[] bold;
+
+		Overlay(List<String> base, int[] marked, String[] bold) {
+			this.base = base;
+			this.marked = marked;
+			this.bold = bold;
+		}
+
+		@Override
+		public String get(int index) {
+			int at = Arrays.binarySearch(marked, index);
+			return at >= 0 ? bold[at] : base.get(index);
+		}
+
+		@Override
+		public int size() {
+			return base.size();
+		}
+	}
+}
@@ -0,0 +1,259 @@
+package lab;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process-wide cache of loaded maps. A map is identified by the canonical path
+ * of its file together with the modification time and the size of the file, so
+ * a file which changes on disk is loaded again. Every map is loaded exactly
+ * once, even if several threads ask for it at the same time (the first one
+ * loads, the others wait for it), and is then shared by all Navigation objects
+ * created for that file.
+ * 
+ * The least recently used maps are evicted as soon as the estimated size of all
+ * cached maps exceeds the budget.
+ * 
+ * @author thecr
+ *
+ */
+public final class MapRegistry {
+
+	private static final MapRegistry SHARED = new MapRegistry(Runtime.getRuntime().maxMemory() / 4);
+
+	/**
+	 * Identifies one version of a map file
+	 */
+	private static final class Key {
+		final String path;
+		final long modified;
+		final long size;
+
+		Key(String path, long modified, long size) {
+			this.path = path;
+			this.modified = modified;
+			this.size = size;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key))
+				return false;
+			Key key = (Key) other;
+			return path.equals(key.path) && modified == key.modified && size == key.size;
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode() * 31 + Long.hashCode(modified) * 17 + Long.hashCode(size);
+		}
+	}
+
+	/**
+	 * A cached map (or the load of it which is still running)
+	 */
+	private static final class Entry {
+		final FutureTask<RoadMap> load;
+		// estimated size, 0 as long as the map is still loading
+		long bytes;
+
+		Entry(FutureTask<RoadMap> load) {
+			this.load = load;
+		}
+	}
+
+	// all entries in the order of their last use (guarded by this)
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private long budget;
+	private long usedBytes;
+	private long loads;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param budget
+	 *            the heap (in bytes) the cached maps may occupy
+	 */
+	public MapRegistry(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * @return the registry shared by all Navigation objects of this process
+	 *         (budget: a quarter of the maximum heap)
+	 */
+	public static MapRegistry shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the map stored in the file, it is only loaded if it is not cached
+	 * yet
+	 * 
+	 * @param filename
+	 *            name of the file containing the map
+	 * @return the loaded map
+	 * @throws UncheckedIOException
+	 *             if the file cannot be read
+	 */
+	RoadMap get(String filename) {
+		Key key = keyOf(filename);
+		Entry entry;
+		boolean loader = false;
+
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry == null) {
+				entry = new Entry(new FutureTask<RoadMap>(() -> RoadMap.load(key.path)));
+				entries.put(key, entry);
+				loader = true;
+			}
+		}
+
+		// the thread which created the entry loads the map, all others wait for it
+		if (loader)
+			entry.load.run();
+
+		RoadMap map;
+		try {
+			map = entry.load.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for " + filename, e);
+		} catch (ExecutionException e) {
+			// failed loads are not cached, the next request tries again
+			synchronized (this) {
+				entries.remove(key, entry);
+			}
+			if (e.getCause() instanceof IOException)
+				throw new UncheckedIOException((IOException) e.getCause());
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+
+		if (loader) {
+			synchronized (this) {
+				loads++;
+				if (entries.get(key) == entry) {
+					entry.bytes = map.estimatedBytes();
+					usedBytes += entry.bytes;
+					removeOutdated(key);
+					evict(entry);
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * @param filename
+	 *            name of the file containing the map
+	 * @return the key of the current version of the file
+	 */
+	private static Key keyOf(String filename) {
+		File file = new File(filename);
+		String path;
+		try {
+			path = file.getCanonicalPath();
+		} catch (IOException e) {
+			path = file.getAbsolutePath();
+		}
+		return new Key(path, file.lastModified(), file.length());
+	}
+
+	/**
+	 * Drops the older versions of the file the key belongs to
+	 */
+	private void removeOutdated(Key current) {
+		for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<Key, Entry> each = it.next();
+			if (each.getKey().path.equals(current.path) && !each.getKey().equals(current)) {
+				usedBytes -= each.getValue().bytes;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops the least recently used maps until the cached maps fit into the
+	 * budget again. The given entry (the map just loaded) and maps which are still
+	 * loading are kept
+	 */
+	private void evict(Entry keep) {
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext() && usedBytes > budget;) {
+			Entry each = it.next();
+			if (each != keep && each.load.isDone()) {
+				usedBytes -= each.bytes;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * @param filename
+	 *            name of the file containing the map
+	 * @return true if the current version of the file is cached (or loading)
+	 */
+	public synchronized boolean isCached(String filename) {
+		return entries.containsKey(keyOf(filename));
+	}
+
+	/**
+	 * @return the number of cached maps
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of maps this registry has loaded so far
+	 */
+	public synchronized long getLoadCount() {
+		return loads;
+	}
+
+	/**
+	 * @return the estimated heap (in bytes) the cached maps occupy
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * @return the heap (in bytes) the cached maps may occupy
+	 */
+	public synchronized long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Changes the budget and evicts maps if they do not fit into it any more
+	 * 
+	 * @param budget
+	 *            the heap (in bytes) the cached maps may occupy
+	 */
+	public synchronized void setBudget(long budget) {
+		this.budget = budget;
+		evict(null);
+	}
+
+	/**
+	 * Removes all cached maps (maps still loading are kept)
+	 */
+	public synchronized void clear() {
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+			Entry each = it.next();
+			if (each.load.isDone()) {
+				usedBytes -= each.bytes;
+				it.remove();
+			}
+		}
+	}
+}
@@ -1,17 +1,31 @@
 package lab;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The class Navigation finds the shortest (and/or) path between points on a map
  * using the Dijkstra algorithm
+ * 
+ * Once the constructor has loaded the map, nothing in a Navigation changes any
+ * more (except the weights through updateConnections, which publishes them as
+ * a whole, and the prepared tables and hot sources, which only this Navigation
+ * uses): all per-query state lives in the search workspace of the calling
+ * thread and every route request works on its own copy of the map. So many
+ * threads can query one Navigation at the same time.
  */
 public class Navigation {
-	ArrayList<String> output = new ArrayList<String>();
+	//The loaded map (lines and graphs). It is shared with all Navigation objects on
+	//the same file until the first change (updateConnections, prepare..., hot sources,
+	//setFrontier) replaces it by a private copy
+	private volatile RoadMap map;
+	//true as soon as map is the private copy
+	private boolean ownMap;
 	/**
 	 * Return codes: -1 if the source is not on the map -2 if the destination is not
 	 * on the map -3 if both source and destination points are not on the map -4 if
@@ -23,102 +37,264 @@ public class Navigation {
 	public static final int SOURCE_DESTINATION_NOT_FOUND = -3;
 	public static final int NO_PATH = -4;
 
+	// number of distance and time results kept by a new Navigation
+	public static final int DEFAULT_CACHE_CAPACITY = 1024;
 
-	private Dijkstra<String> shortestRoute = new Dijkstra<String>();
-	private Dijkstra<String> fastestRoute = new Dijkstra<String>();
-	
-/*
- * Stores the waiting time which was unnecessary added (in our use cases this will be the first and the last node, as their waitingTime was added
- * but should not be added because the first and last node are never traversed
- */
-	int unnecessaryWaitingTime = 0;
 
-	/*
-	 * The list is later used as a "Dictionary", to check which city has how much of a waiting time 
-	 * This List is also called from our Dijkstra calculation, so it is static and public
-	 */
-	public static List<String> waitingTime = new ArrayList<String>();
-	//Saves the connections (edges) taken to get from source to destination
-	private List<String> traversedConnections = new ArrayList<String>();
+	private volatile Dijkstra<String> shortestRoute;
+	private volatile Dijkstra<String> fastestRoute;
+
+	// algorithm used for the route, distance and time queries
+	private volatile Dijkstra.Algorithm algorithm = Dijkstra.Algorithm.BIDIRECTIONAL;
+
+	// results of the distance and time queries asked for most often
+	private volatile RouteCache cache = new RouteCache(DEFAULT_CACHE_CAPACITY);
 
 	/**
 	 * The constructor takes a filename as input, it reads that file and fill the
-	 * nodes and edges Lists with corresponding node and edge objects
+	 * nodes and edges Lists with corresponding node and edge objects. The file can
+	 * either be a map in the Dot format or a snapshot file written by
+	 * saveSnapshot. The map is taken from the shared MapRegistry, so a file is only
+	 * read once, no matter how many Navigation objects are created for it
 	 * 
 	 * @param filename
 	 *            name of the file containing the input map
 	 */
 	public Navigation(String filename) {
+		this(loadMap(filename));
+	}
 
+	/**
+	 * Like the constructor, but a file which cannot be loaded is reported
+	 * instead of being replaced by an empty map
+	 * 
+	 * @param filename
+	 *            name of the file containing the input map
+	 * @return navigation on the map stored in the file
+	 * @throws IOException
+	 *             if the file cannot be read or is no valid map
+	 */
+	public static Navigation load(String filename) throws IOException {
 		try {
-			// Open the file
-			FileInputStream fstream = new FileInputStream(filename);
-			BufferedReader br = new BufferedReader(new InputStreamReader(fstream));
-
-			// Read File Line By Line
-			for (String curLine = br.readLine(); curLine != null; curLine = br.readLine()) {
-
-				//adds the just read input to the output, this may be a bit lazy but helps us later
-				output.add(curLine);
-
-				// first and last line are simply ignored
-				if (curLine.contains("{") || curLine.contains("}")) {
-					// ignore this lines
-				}
-
-				// every other line is interpreted
-
-				else {
-
-					// index of different "signs" in the line, these are helpful for reading the
-					// content of each line
-					int arrow = curLine.indexOf('>');
-					int sign = curLine.indexOf('"');
-					int sign2 = curLine.lastIndexOf('"');
-					int dividingComma = curLine.indexOf(',');
-					int dash = curLine.indexOf('-');
-					int bracket = curLine.indexOf('[');
+			return new Navigation(MapRegistry.shared().get(filename));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
 
-					// meaning: If the position of the arrow is not negativ (--> there is a arrow in
-					// this line!) proceed
-					// Line of this format: A -> B [label="10,90"];
-					if (!(arrow < 0)) {
+	/**
+	 * Constructor for an already loaded map
+	 * 
+	 * @param map
+	 *            the loaded map
+	 */
+	Navigation(RoadMap map) {
+		this.map = map;
+		this.shortestRoute = map.distances;
+		this.fastestRoute = map.times;
+		// a map with all-pairs tables (from a snapshot file) is answered from them
+		if (shortestRoute.lengthOracle() != null && fastestRoute.timeOracle() != null)
+			this.algorithm = Dijkstra.Algorithm.ORACLE;
+	}
 
-						String from = curLine.substring(0, dash - 1);
-						String to = curLine.substring(arrow + 2, bracket - 1);
+	/**
+	 * @param filename
+	 *            name of the file containing the input map
+	 * @return the map from the shared registry, an empty map if it cannot be
+	 *         loaded
+	 */
+	private static RoadMap loadMap(String filename) {
+		try {
+			return MapRegistry.shared().get(filename);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return RoadMap.empty();
+		}
+	}
 
-						int length = Integer.parseInt(curLine.subSequence(sign + 1, dividingComma).toString());
-						int speed = Integer.parseInt(curLine.subSequence(dividingComma + 1, sign2).toString());
+	/**
+	 * Sets the algorithm used for the route, distance and time queries. The
+	 * default is the bidirectional search, which only settles the nodes around
+	 * A and B instead of the whole map
+	 * 
+	 * @param algorithm
+	 *            the search algorithm
+	 */
+	public void setAlgorithm(Dijkstra.Algorithm algorithm) {
+		this.algorithm = algorithm;
+	}
 
-						shortestRoute.addEdge(from, to, length);
+	/**
+	 * Sets the queue used by the searches on the map (see Dijkstra.setFrontier).
+	 * Like all settings of the map it only holds for this Navigation (see
+	 * ownMap)
+	 *
+	 * @param type
+	 *            the kind of queue
+	 * @param arity
+	 *            number of children per heap node (only used by D_ARY_HEAP, at
+	 *            least 2)
+	 */
+	public synchronized void setFrontier(Dijkstra.FrontierType type, int arity) {
+		RoadMap own = ownMap();
+		own.distances.setFrontier(type, arity);
+		own.times.setFrontier(type, arity);
+	}
 
-						fastestRoute.addEdge(from, to, ((double) length / (double) speed * 60));
+	/**
+	 * Replaces the cache of the distance and time results by an empty one
+	 * 
+	 * @param capacity
+	 *            the maximal number of results kept, 0 switches the cache off
+	 */
+	public void setCacheCapacity(int capacity) {
+		this.cache = new RouteCache(capacity);
+	}
 
-					}
-					// meaning: there is no arrow in this line!
-					// Line of this format: A [label="A,5"];
+	/**
+	 * @return the cache of the distance and time results (with its hit and miss
+	 *         counters)
+	 */
+	public RouteCache getCache() {
+		return cache;
+	}
 
-					// Nodes with waiting time
-					if ((arrow < 0)) {
+	/**
+	 * Picks landmarks and computes their distance and time tables, so the ALT
+	 * search (Dijkstra.Algorithm.ALT) can be used. The tables are written into
+	 * snapshot files together with the map. Only this Navigation gets them (see
+	 * ownMap)
+	 * 
+	 * @param count
+	 *            number of landmarks
+	 * @param selection
+	 *            how the landmarks are picked
+	 */
+	public synchronized void prepareLandmarks(int count, Dijkstra.LandmarkSelection selection) {
+		RoadMap own = ownMap();
+		own.distances.prepareLengthLandmarks(count, selection);
+		own.times.prepareTimeLandmarks(count, selection);
+	}
 
-						String name = curLine.substring(0, bracket - 1);
-						int waitingTime = Integer.parseInt(
-								curLine.subSequence(curLine.indexOf(',') + 1, (curLine.indexOf(',') + 2)).toString());
-						//This adds the name of the Node and the belonging waiting time to the List. 
-						Navigation.waitingTime.add(name + " " + waitingTime);
+	/**
+	 * Contracts the distance and the time graph, so the search on the contraction
+	 * hierarchies (Dijkstra.Algorithm.CONTRACTION_HIERARCHY) can be used. Routes
+	 * found on the hierarchies are unpacked to the connections of the map, so
+	 * the route queries still mark the right connections. Only this Navigation
+	 * gets the hierarchies (see ownMap)
+	 */
+	public synchronized void prepareHierarchies() {
+		RoadMap own = ownMap();
+		own.distances.prepareLengthHierarchy();
+		own.times.prepareTimeHierarchy();
+	}
 
-					}
+	/**
+	 * Searches from every point of the map once (in parallel on the common
+	 * ForkJoinPool) and keeps all distances, times and routes. From then on the
+	 * queries are answered by looking them up (Dijkstra.Algorithm.ORACLE, which is
+	 * selected by this method). The tables are written into snapshot files
+	 * together with the map; a Navigation on such a file uses them right away.
+	 * They need 24 bytes for every pair of points, so this is meant for small
+	 * and medium maps. Only this Navigation gets the tables (see ownMap)
+	 */
+	public synchronized void prepareOracles() {
+		RoadMap own = ownMap();
+		own.distances.prepareLengthOracle(ForkJoinPool.commonPool());
+		own.times.prepareTimeOracle(ForkJoinPool.commonPool());
+		algorithm = Dijkstra.Algorithm.ORACLE;
+	}
 
-				}
+	/**
+	 * Changes length and speed of many connections at once, for example from a
+	 * live traffic feed. The new distances and times are published as a whole:
+	 * queries which are already running finish with the old ones. Only this
+	 * Navigation sees the new values (see ownMap). Connections which are not on
+	 * the map are skipped
+	 *
+	 * @param from
+	 *            start points of the connections
+	 * @param to
+	 *            end points of the connections
+	 * @param lengths
+	 *            the new lengths in km
+	 * @param speeds
+	 *            the new speeds in km/h
+	 * @return the number of connections which were changed
+	 */
+	public synchronized int updateConnections(String[] from, String[] to, double[] lengths, double[] speeds) {
+		return ownMap().updateConnections(from, to, lengths, speeds);
+	}
 
-			}
+	/**
+	 * The map is shared with all other Navigation objects on the same file. The
+	 * first call which changes it (new weights, prepared tables, hot sources or
+	 * the queue) copies it (nothing but the point names is copied, the tables
+	 * prepared so far are taken over), so the change only holds for this
+	 * Navigation. Called with the lock of this Navigation
+	 *
+	 * @return the map only this Navigation uses
+	 */
+	private RoadMap ownMap() {
+		if (!ownMap) {
+			RoadMap copy = map.copy();
+			shortestRoute = copy.distances;
+			fastestRoute = copy.times;
+			map = copy;
+			ownMap = true;
+		}
+		return map;
+	}
 
-			br.close();
+	/**
+	 * Makes the point a hot source: its shortest distance and fastest time trees
+	 * are kept and repaired whenever the weights of the map change, so routes
+	 * from it are read out of the trees instead of being searched. Only the
+	 * queries of this Navigation use the trees (see ownMap)
+	 *
+	 * @param point
+	 *            the source point
+	 * @return false if the point is not on the map
+	 */
+	public synchronized boolean addHotSource(String point) {
+		RoadMap own = ownMap();
+		return own.distances.addHotLengthSource(point) && own.times.addHotTimeSource(point);
+	}
 
-		} catch (Exception e) {
-			e.printStackTrace();
+	/**
+	 * Drops the trees of a hot source again
+	 *
+	 * @param point
+	 *            the source point
+	 */
+	public synchronized void removeHotSource(String point) {
+		// a shared map has no hot sources of this Navigation
+		if (ownMap) {
+			map.distances.removeHotSource(point);
+			map.times.removeHotSource(point);
 		}
+	}
 
+	/**
+	 * @return number of landmarks the distance search of this map can use (0 if
+	 *         none were prepared)
+	 */
+	public int getLandmarkCount() {
+		return shortestRoute.getLengthLandmarkCount();
+	}
+
+	/**
+	 * Saves the loaded map as binary snapshot file. A Navigation created for the
+	 * snapshot file maps it into memory instead of reading and parsing the map
+	 * again, which makes the start on big maps much faster
+	 * 
+	 * @param filename
+	 *            name of the snapshot file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void saveSnapshot(String filename) throws IOException {
+		SnapshotFile.write(map, Paths.get(filename));
 	}
 
 	/**
@@ -129,7 +305,8 @@ public class Navigation {
 	 * where every element is a String representing one line in the map. The output
 	 * map is identical to the input map, apart from that all edges on the shortest
 	 * route are marked "bold". It is also possible to output a map where all
-	 * shortest paths starting in A are marked bold.
+	 * shortest paths starting in A are marked bold (see findShortestRouteTree and
+	 * findFastestRouteTree).
 	 * 
 	 * The order of the edges as they appear in the output may differ from the
 	 * input.
@@ -143,67 +320,25 @@ public class Navigation {
 	 */
 	public ArrayList<String> findShortestRoute(String A, String B) {
 
-		//Initalizes and saves the shortest Path taken from one source to (another) destination
-		List<String> shortestPath = new ArrayList<String>(shortestRoute.getPathLength(A, B));
-		
+		//Runs the search and gets the shortest route from source to destination as typed result
+		RouteResult route = shortestRoute.getRouteLength(A, B, algorithm);
 
 		/*
-		 * (Ab)uses our output from the path to get each traversed node (Output looks like A,B,C,D, which
-		 * means we started from Node A, traveled over node B and C to reach our destination Node D
-		 * The output from our method is then fit to our needs by replacing each unnecessary node
-		 */
-		String matcher;
-		matcher = (shortestPath.toString().replaceAll(":", "").replace("length", "").replaceAll("[0-9]", "").replace(".", "")
-				.replace(" ", "").toString());
-		
-		/*
-		 * If we find our "signal word" we know there is no path between the two nodes, so there is no need
+		 * If there is no route between the two nodes (or one of them is not on the map) there is no need
 		 * to check further and we can simply print our output how we got it (output = input) to save computing
 		 * power (--> no node was traversed = no node is made bold!)
 		 */
-		
-		if (matcher.contains("Nopathfound")) {
-			return output;
+		if (!route.isFound()) {
+			return new ArrayList<String>(map.lines());
 		}
-		
-		
-		
-		//Turns our just created matcher into an array by splitting at each ','		
-		String[] matcherArray = ((String) matcher.subSequence(1, matcher.length() - 1)).split(",");
-
-		
-		/*
-		 * Uses our just created Array to produce an output of the form (for the example A,B,C,D) : 
-		 * [A -> B, B -> C, C -> D] this is our path taken and fits the input we got as Dot language
-		 */
-		for (int i = 0; i < matcherArray.length - 1; i++) {
 
-			String element = matcherArray[i] + " -> " + matcherArray[i + 1];
-
-			traversedConnections.add(element);
-
-		}
-		
 		/*
-		 * works on the prepared output (which was basically our input just saved...) and applies the bold style to each traversed edge 
-		 * which we find by comparing it with our List (which contains "A -> B" like string).
+		 * The lines of the edges A -> B, B -> C, ... of the route (A,B,C,D) are looked up in the index of the
+		 * map by the node ids, so only the lines of the route are touched. Every request gets its own copy of
+		 * the map, the loaded map stays untouched
 		 */
-
-		for (int i = 0; i < output.indexOf("}"); i++) {
-			if (output.get(i).contains("->")) {
-
-				for (int index = 0; index + 1 < matcherArray.length; index++) {
-
-					if (output.get(i).contains(traversedConnections.get(index))) {
-
-						output.set(i, output.get(i).replace(";", "") + "[style = bold]" + ";");
-					}
-
-				}
-			}
-		}
-
-		return output;
+		MapLines lines = map.indexedLines();
+		return lines.render(lines.routeLines(route.getPath()));
 
 	}
 
@@ -216,7 +351,8 @@ public class Navigation {
 	 * where every element is a String representing one line in the map. The output
 	 * map is identical to the input map, apart from that all edges on the shortest
 	 * route are marked "bold". It is also possible to output a map where all
-	 * shortest paths starting in A are marked bold.
+	 * shortest paths starting in A are marked bold (see findShortestRouteTree and
+	 * findFastestRouteTree).
 	 * 
 	 * The order of the edges as they appear in the output may differ from the
 	 * input.
@@ -229,69 +365,161 @@ public class Navigation {
 	 *         there is no path between them the original map is to be returned.
 	 */
 	public ArrayList<String> findFastestRoute(String A, String B) {
-		
-		//Initalizes and saves the shortest Path taken from one source to (another) destination
-		List<String> a = new ArrayList<String>(shortestRoute.getPathTime(A, B));
-
-		/*
-		 * (Ab)uses our output from the path to get each traversed node (Output looks like A,B,C,D, which
-		 * means we started from Node A, traveled over node B and C to reach our destination Node D
-		 * The output from our method is then fit to our needs by replacing each unnecessary node
-		 */
-		String matcher;
 
-		matcher = (a.toString().replaceAll(":", "").replace("length", "").replaceAll("[0-9]", "").replace(".", "")
-				.replace(" ", "").toString());
+		//Runs the search and gets the fastest route from source to destination as typed result
+		RouteResult route = fastestRoute.getRouteTime(A, B, algorithm);
 
-		
 		/*
-		 * If we find our "signal word" we know there is no path between the two nodes, so there is no need
+		 * If there is no route between the two nodes (or one of them is not on the map) there is no need
 		 * to check further and we can simply print our output how we got it (output = input) to save computing
 		 * power (--> no node was traversed = no node is made bold!)
 		 */
-
-		if (matcher.contains("Nopathfound")) {
-			return output;
+		if (!route.isFound()) {
+			return new ArrayList<String>(map.lines());
 		}
-		
-		//Turns our just created matcher into an array by splitting at each ','		
-		String[] matcherArray = ((String) matcher.subSequence(1, matcher.length() - 1)).split(",");
-		
+
 		/*
-		 * Uses our just created Array to produce an output of the form (for the example A,B,C,D) : 
-		 * [A -> B, B -> C, C -> D] this is our path taken and fits the input we got as Dot language
+		 * The lines of the edges A -> B, B -> C, ... of the route (A,B,C,D) are looked up in the index of the
+		 * map by the node ids, so only the lines of the route are touched. Every request gets its own copy of
+		 * the map, the loaded map stays untouched
 		 */
+		MapLines lines = map.indexedLines();
+		return lines.render(lines.routeLines(route.getPath()));
+
+	}
+
+	/**
+	 * Like findShortestRoute, but the map is not copied: the bold edges of the
+	 * route are laid over the lines of the loaded map, so the answer costs about as
+	 * much as the route is long, however big the map is
+	 * 
+	 * @param A
+	 *            Source
+	 * @param B
+	 *            Destination
+	 * @return an unmodifiable view of the map with the route marked bold (the
+	 *         original map if there is no route)
+	 */
+	public List<String> findShortestRouteView(String A, String B) {
+		return routeView(shortestRoute.getRouteLength(A, B, algorithm));
+	}
 
-		for (int i = 0; i < matcherArray.length - 1; i++) {
+	/**
+	 * Like findFastestRoute, but the map is not copied (see findShortestRouteView)
+	 * 
+	 * @param A
+	 *            Source
+	 * @param B
+	 *            Destination
+	 * @return an unmodifiable view of the map with the route marked bold (the
+	 *         original map if there is no route)
+	 */
+	public List<String> findFastestRouteView(String A, String B) {
+		return routeView(fastestRoute.getRouteTime(A, B, algorithm));
+	}
 
-			String element = matcherArray[i] + " -> " + matcherArray[i + 1];
+	/**
+	 * Finds the shortest route and returns a writer which streams the map with the
+	 * route marked bold (see findShortestRoute) to a Writer, an OutputStream or a
+	 * channel, without building the map as a list. In the DIFF mode only the
+	 * first line, the bold edges and the last line are written
+	 * 
+	 * @param A
+	 *            Source
+	 * @param B
+	 *            Destination
+	 * @param mode
+	 *            the whole map or only the route
+	 * @return the writer (nothing is marked if there is no route)
+	 */
+	public RouteWriter shortestRouteWriter(String A, String B, RouteWriter.Mode mode) {
+		return routeWriter(shortestRoute.getRouteLength(A, B, algorithm), mode);
+	}
 
-			traversedConnections.add(element);
+	/**
+	 * Like shortestRouteWriter, for the fastest route
+	 * 
+	 * @param A
+	 *            Source
+	 * @param B
+	 *            Destination
+	 * @param mode
+	 *            the whole map or only the route
+	 * @return the writer (nothing is marked if there is no route)
+	 */
+	public RouteWriter fastestRouteWriter(String A, String B, RouteWriter.Mode mode) {
+		return routeWriter(fastestRoute.getRouteTime(A, B, algorithm), mode);
+	}
 
-		}
+	/**
+	 * Marks all shortest routes starting in A at once: one search from A, then
+	 * every edge of its shortest path tree (the last edge of the shortest route
+	 * to every point A reaches) is marked bold in one pass over the map
+	 * 
+	 * @param A
+	 *            Source
+	 * @return the map with the tree marked bold, the original map if A is not on
+	 *         the map
+	 */
+	public ArrayList<String> findShortestRouteTree(String A) {
+		MapLines lines = map.indexedLines();
+		return lines.render(treeLines(lines, shortestRoute.shortestPathTree(A, false)));
+	}
 
-		/*
-		 * works on the prepared output (which was basically our input just saved...) and applies the bold style to each traversed edge 
-		 * which we find by comparing it with our List (which contains "A -> B" like string).
-		 */
+	/**
+	 * Like findShortestRouteTree, for all fastest routes starting in A
+	 * 
+	 * @param A
+	 *            Source
+	 * @return the map with the tree marked bold, the original map if A is not on
+	 *         the map
+	 */
+	public ArrayList<String> findFastestRouteTree(String A) {
+		MapLines lines = map.indexedLines();
+		return lines.render(treeLines(lines, fastestRoute.shortestPathTree(A, true)));
+	}
 
-		for (int i = 0; i < output.indexOf("}"); i++) {
-			if (output.get(i).contains("->")) {
+	/**
+	 * Like findShortestRouteTree, but the map is streamed (see
+	 * shortestRouteWriter)
+	 * 
+	 * @param A
+	 *            Source
+	 * @param mode
+	 *            the whole map or only the tree
+	 * @return the writer (nothing is marked if A is not on the map)
+	 */
+	public RouteWriter shortestTreeWriter(String A, RouteWriter.Mode mode) {
+		MapLines lines = map.indexedLines();
+		return new RouteWriter(lines, treeLines(lines, shortestRoute.shortestPathTree(A, false)), mode);
+	}
 
-				for (int index = 0; index + 1 < matcherArray.length; index++) {
-					
-					if (output.get(i).contains(traversedConnections.get(index))) {
-						
-						output.set(i, output.get(i).replace(";", "") + "[style = bold]" + ";");
-						
-					}
-				}
+	/**
+	 * Like findFastestRouteTree, but the map is streamed (see shortestRouteWriter)
+	 * 
+	 * @param A
+	 *            Source
+	 * @param mode
+	 *            the whole map or only the tree
+	 * @return the writer (nothing is marked if A is not on the map)
+	 */
+	public RouteWriter fastestTreeWriter(String A, RouteWriter.Mode mode) {
+		MapLines lines = map.indexedLines();
+		return new RouteWriter(lines, treeLines(lines, fastestRoute.shortestPathTree(A, true)), mode);
+	}
 
-			}
-		}
+	private static int[] treeLines(MapLines lines, int[] fathers) {
+		return fathers == null ? new int[0] : lines.treeLines(fathers);
+	}
 
-		return output;
+	private RouteWriter routeWriter(RouteResult route, RouteWriter.Mode mode) {
+		MapLines lines = map.indexedLines();
+		return new RouteWriter(lines, route.isFound() ? lines.routeLines(route.getPath()) : new int[0], mode);
+	}
 
+	private List<String> routeView(RouteResult route) {
+		MapLines lines = map.indexedLines();
+		return route.isFound() ? lines.overlay(lines.routeLines(route.getPath())) : lines.lines();
 	}
 
 	/**
@@ -318,28 +546,19 @@ public class Navigation {
 			return 0;
 		}
 
-		if (shortestRoute.findNode(A) == null && shortestRoute.findNode(B) == null) {
-			return SOURCE_DESTINATION_NOT_FOUND;
-		}
-
-		if (shortestRoute.findNode(A) == null) {
-			return SOURCE_NOT_FOUND;
-		}
-
-		if (shortestRoute.findNode(B) == null) {
-			return DESTINATION_NOT_FOUND;
-		}
-
-		
-		
-		
-		@SuppressWarnings("unused")
-		List<String> path = shortestRoute.getPathLength(A, B);
+		// the generation is read before the search, so a result which is stored
+		// while the graph changes is already outdated and never used
+		RouteCache results = cache;
+		long generation = shortestRoute.getGeneration();
+		int cached = results.get(RouteCache.Metric.DISTANCE, A, B, generation);
+		if (cached != RouteCache.MISS)
+			return cached;
 
-		int shortest = 0;
-		shortest = (int) shortestRoute.getLengthAsInt(A, B);
+		RouteResult route = shortestRoute.getRouteLength(A, B, algorithm);
 
-		return shortest;
+		// the distance (or the status code) comes straight from the search
+		results.put(RouteCache.Metric.DISTANCE, A, B, generation, route.getRoundedValue());
+		return route.getRoundedValue();
 
 	}
 
@@ -367,77 +586,146 @@ public class Navigation {
 			return 0;
 		}
 
-		if (fastestRoute.findNode(pointA) == null && fastestRoute.findNode(pointB) == null) {
-			return SOURCE_DESTINATION_NOT_FOUND;
-		}
+		RouteCache results = cache;
+		long generation = fastestRoute.getGeneration();
+		int cached = results.get(RouteCache.Metric.TIME, pointA, pointB, generation);
+		if (cached != RouteCache.MISS)
+			return cached;
 
-		if (fastestRoute.findNode(pointA) == null) {
-			return SOURCE_NOT_FOUND;
-		}
+		RouteResult route = fastestRoute.getRouteTime(pointA, pointB, algorithm);
 
-		if (fastestRoute.findNode(pointB) == null) {
-			return DESTINATION_NOT_FOUND;
-		}
+		// the time (including the waiting times of the nodes travelled through) or the status code
+		// comes straight from the search
+		results.put(RouteCache.Metric.TIME, pointA, pointB, generation, route.getRoundedValue());
+		return route.getRoundedValue();
 
-		List<String> path = fastestRoute.getPathTime(pointA, pointB);
+	}
 
-		int fastest = 0;
-		fastest = fastestRoute.getTime(pointA, pointB);
-		
-		//If there is no path found, there is no need to Continue searching.
-		if (fastest == -4) {
-			return fastest;
-		}
+	/**
+	 * Finds the shortest distances in kilometers from A to many destinations. Only
+	 * one search is run for all of them, it stops as soon as every destination is
+	 * settled.
+	 * 
+	 * @param A
+	 *            the start point A
+	 * @param destinations
+	 *            the destination points
+	 * @return for every destination (in the order of the collection) the shortest
+	 *         distance rounded upwards or the status code as returned by
+	 *         findShortestDistance
+	 */
+	public int[] findShortestDistances(String A, Collection<String> destinations) {
+		return sameNodeIsZero(A, destinations, shortestRoute.getRouteLengths(A, destinations));
+	}
 
-		List<String> clone = new ArrayList<String>();
+	/**
+	 * Finds the fastest times in minutes from A to many destinations. Only one
+	 * search is run for all of them, it stops as soon as every destination is
+	 * settled.
+	 * 
+	 * @param A
+	 *            the start point A
+	 * @param destinations
+	 *            the destination points
+	 * @return for every destination (in the order of the collection) the fastest
+	 *         time rounded upwards or the status code as returned by
+	 *         findFastestTime
+	 */
+	public int[] findFastestTimes(String A, Collection<String> destinations) {
+		return sameNodeIsZero(A, destinations, fastestRoute.getRouteTimes(A, destinations));
+	}
 
-		for (int i = 0; i < path.size(); i++) {
-			clone.add(path.get(i));
-		}
-		
-		if (clone.size() > 2){
-			String lastValue = 
-			(clone.get(clone.size()-1).substring(0, clone.get(clone.size() -1 ).indexOf(' ')));
-			
-			
-			
-			unnecessaryWaitingTime = unnecessaryWaitingTime - returnWaitingTime(lastValue);
+	/**
+	 * Like findShortestDistance and findFastestTime the way from a point to itself
+	 * is always 0
+	 */
+	private static int[] sameNodeIsZero(String A, Collection<String> destinations, int[] results) {
+		int i = 0;
+		for (String B : destinations) {
+			if (A.equals(B))
+				results[i] = 0;
+			i++;
 		}
-			String firstValue = 
-					(clone.get(0)).substring(0, clone.get(0).indexOf(' '));	
-			unnecessaryWaitingTime = unnecessaryWaitingTime - returnWaitingTime(firstValue);
-		
-		
-		
-		return fastest + unnecessaryWaitingTime;
+		return results;
+	}
 
+	/**
+	 * Computes the shortest distances in kilometers from every source to every
+	 * destination. The sources are searched in parallel (one search per source on
+	 * the common ForkJoinPool)
+	 * 
+	 * @param sources
+	 *            the start points
+	 * @param destinations
+	 *            the destination points
+	 * @return the matrix, toRoundedArray gives the values as findShortestDistance
+	 *         returns them
+	 */
+	public DistanceMatrix findShortestDistanceMatrix(Collection<String> sources, Collection<String> destinations) {
+		return shortestRoute.getLengthMatrix(sources, destinations, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Computes the fastest times in minutes from every source to every
+	 * destination. The sources are searched in parallel (one search per source on
+	 * the common ForkJoinPool)
+	 * 
+	 * @param sources
+	 *            the start points
+	 * @param destinations
+	 *            the destination points
+	 * @return the matrix, toRoundedArray gives the values as findFastestTime
+	 *         returns them
+	 */
+	public DistanceMatrix findFastestTimeMatrix(Collection<String> sources, Collection<String> destinations) {
+		return fastestRoute.getTimeMatrix(sources, destinations, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Like findShortestDistanceMatrix, but the matrix is written straight to a
+	 * file (format see DistanceMatrix) instead of being kept in memory
+	 * 
+	 * @param sources
+	 *            the start points
+	 * @param destinations
+	 *            the destination points
+	 * @param filename
+	 *            name of the file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void writeShortestDistanceMatrix(Collection<String> sources, Collection<String> destinations,
+			String filename) throws IOException {
+		shortestRoute.writeLengthMatrix(sources, destinations, ForkJoinPool.commonPool(), Paths.get(filename));
+	}
+
+	/**
+	 * Like findFastestTimeMatrix, but the matrix is written straight to a file
+	 * (format see DistanceMatrix) instead of being kept in memory
+	 * 
+	 * @param sources
+	 *            the start points
+	 * @param destinations
+	 *            the destination points
+	 * @param filename
+	 *            name of the file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public void writeFastestTimeMatrix(Collection<String> sources, Collection<String> destinations,
+			String filename) throws IOException {
+		fastestRoute.writeTimeMatrix(sources, destinations, ForkJoinPool.commonPool(), Paths.get(filename));
 	}
 
 	/**
-	 * "Dictionary Function" which checks to which City which waiting Time belongs
+	 * Looks up the waiting time of a node
 	 * 
 	 * @param node
+	 *            name of the node
 	 * @return returns the value as int of how long the waiting time at given node
 	 *         is (in minutes)
 	 */
 	public int returnWaitingTime(String node) {
-
-		int waitingTimeInt = 0;
-
-		for (int i = 0; i < Navigation.waitingTime.size(); i++) {
-
-			String value = Navigation.waitingTime.get(i).substring(0, Navigation.waitingTime.get(i).indexOf(' '));
-
-			if (value.equals(node)) {
-				int blank = Navigation.waitingTime.get(i).indexOf(' ');
-
-				waitingTimeInt = Integer.valueOf(waitingTime.get(i).substring(blank + 1));
-
-			}
-
-		}
-		
-		
-		return waitingTimeInt + unnecessaryWaitingTime;
+		return (int) fastestRoute.getWaitingTime(node);
 	}
 }
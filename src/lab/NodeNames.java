@@ -0,0 +1,32 @@
+package lab;
+
+/**
+ * Maps the names of the nodes of a frozen graph to their dense ids and back,
+ * without Node objects (see {@link Dijkstra#Dijkstra(CompactGraph, NodeNames)})
+ * 
+ * @author thecr
+ *
+ * @param <T>
+ *            type of the node names
+ */
+interface NodeNames<T> {
+
+	/**
+	 * @return the number of nodes
+	 */
+	int size();
+
+	/**
+	 * @param name
+	 *            name of the node
+	 * @return the id of the node or -1 if there is no node with this name
+	 */
+	int idOf(T name);
+
+	/**
+	 * @param id
+	 *            id of the node
+	 * @return the name of the node
+	 */
+	T nameOf(int id);
+}
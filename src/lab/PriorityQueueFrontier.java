@@ -0,0 +1,102 @@
+package lab;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Frontier on top of java.util.PriorityQueue. Instead of removing a node
+ * before re-adding it with a lower key (which is O(n)), a new entry is added
+ * and the outdated one is skipped when it comes up. Mainly kept to compare it
+ * with the {@link IndexedHeap}.
+ * 
+ * @author thecr
+ *
+ */
+final class PriorityQueueFrontier implements Frontier {
+
+	/**
+	 * One entry of the queue: a node together with the key it had when it was
+	 * added
+	 */
+	private static final class Entry implements Comparable<Entry> {
+		final int node;
+		final double key;
+
+		Entry(int node, double key) {
+			this.node = node;
+			this.key = key;
+		}
+
+		public int compareTo(Entry other) {
+			return Double.compare(key, other.key);
+		}
+	}
+
+	private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+	// current key of every node, NaN if the node is not in the queue
+	private final double[] keys;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param capacity
+	 *            number of nodes (node ids have to be smaller than this)
+	 */
+	PriorityQueueFrontier(int capacity) {
+		keys = new double[capacity];
+		Arrays.fill(keys, Double.NaN);
+	}
+
+	/**
+	 * @return the number of nodes the queue can hold
+	 */
+	int capacity() {
+		return keys.length;
+	}
+
+	@Override
+	public void insertOrDecrease(int node, double key) {
+		if (key < keys[node] || Double.isNaN(keys[node])) {
+			keys[node] = key;
+			queue.add(new Entry(node, key));
+		}
+	}
+
+	@Override
+	public int poll() {
+		dropOutdated();
+		Entry top = queue.poll();
+		keys[top.node] = Double.NaN;
+		return top.node;
+	}
+
+	@Override
+	public double peekKey() {
+		dropOutdated();
+		return queue.peek().key;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		dropOutdated();
+		return queue.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		for (Entry each : queue) {
+			keys[each.node] = Double.NaN;
+		}
+		queue.clear();
+	}
+
+	/**
+	 * Removes the entries at the head of the queue which were replaced by an entry
+	 * with a lower key
+	 */
+	private void dropOutdated() {
+		while (!queue.isEmpty() && queue.peek().key != keys[queue.peek().node]) {
+			queue.poll();
+		}
+	}
+}
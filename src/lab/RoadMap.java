@@ -0,0 +1,260 @@
+package lab;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * A loaded map: the lines of the input file together with the distance graph
+ * and the time graph built from it. After loading, both graphs are frozen, so
+ * one RoadMap can be shared by any number of Navigation objects (see
+ * {@link MapRegistry}). A shared map is never changed: updateConnections is only
+ * called on a copy (see copy), which publishes new snapshots (and lines) as a
+ * whole.
+ * 
+ * A map opened from a snapshot file has no lines; they are written from the
+ * graphs the first time they are needed.
+ * 
+ * @author thecr
+ *
+ */
+final class RoadMap {
+
+	//The lines of the input map (null until they are needed if the map comes from a snapshot),
+	//written from the graphs again after updateConnections
+	private volatile MapLines lines;
+	//Graph with the length (in km) of every edge
+	final Dijkstra<String> distances;
+	//Graph with the time (in minutes) of every edge and the waiting time of every node
+	final Dijkstra<String> times;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param lines
+	 *            the lines of the input map with the index of their edges
+	 * @param distances
+	 *            the distance graph
+	 * @param times
+	 *            the time graph
+	 */
+	RoadMap(MapLines lines, Dijkstra<String> distances, Dijkstra<String> times) {
+		this.lines = lines;
+		this.distances = distances;
+		this.times = times;
+		//compiles both graphs once, so the queries only read the frozen snapshots
+		distances.freeze();
+		times.freeze();
+	}
+
+	/**
+	 * Constructor for a map without lines (they are written from the graphs when
+	 * they are needed)
+	 * 
+	 * @param distances
+	 *            the distance graph
+	 * @param times
+	 *            the time graph
+	 */
+	RoadMap(Dijkstra<String> distances, Dijkstra<String> times) {
+		this(null, distances, times);
+	}
+
+	/**
+	 * Copies the map, so it can be changed without changing the map shared by the
+	 * MapRegistry. Lines and snapshots are immutable and shared with the copy
+	 * until it is changed
+	 * 
+	 * @return the copy
+	 */
+	RoadMap copy() {
+		synchronized (this) {
+			return new RoadMap(lines, distances.copy(), times.copy());
+		}
+	}
+
+	/**
+	 * @return the lines of the map in the Dot format
+	 */
+	List<String> lines() {
+		return indexedLines().lines();
+	}
+
+	/**
+	 * @return the lines of the map together with the index of their edges (to
+	 *         draw routes)
+	 */
+	MapLines indexedLines() {
+		MapLines current = lines;
+		if (current == null) {
+			synchronized (this) {
+				current = lines;
+				if (current == null) {
+					current = writeLines();
+					lines = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Writes the map in the Dot format: one line for every edge (A -> B
+	 * [label="length,speed"];) and one for every node (A [label="A,waiting
+	 * time"];). Used for maps opened from a snapshot file, which have no lines of
+	 * their own. The speed is calculated back from length and time of the edge
+	 * 
+	 * @return the lines of the map
+	 */
+	private MapLines writeLines() {
+		CompactGraph length = distances.freeze();
+		CompactGraph time = times.freeze();
+		MapLines.Builder output = new MapLines.Builder();
+
+		output.addFrame("Digraph {");
+		for (int u = 0; u < length.size(); u++) {
+			String from = distances.getName(u);
+			for (int e = length.firstEdge(u); e < length.lastEdge(u); e++) {
+				double speed = time.weight(e) > 0 ? length.weight(e) / time.weight(e) * 60 : 1;
+				// the division leaves tiny errors on whole speeds
+				if (Math.abs(speed - Math.rint(speed)) < 1e-9)
+					speed = Math.rint(speed);
+				output.addEdge(from + " -> " + distances.getName(length.target(e)) + " [label=\""
+						+ number(length.weight(e)) + "," + number(speed) + "\"];", u, length.target(e));
+			}
+		}
+		for (int u = 0; u < time.size(); u++) {
+			String name = times.getName(u);
+			output.add(name + " [label=\"" + name + "," + number(time.waitingTime(u)) + "\"];");
+		}
+		output.addFrame("}");
+		return output.build();
+	}
+
+	/**
+	 * Changes length and speed of many connections at once (for example from a
+	 * live traffic feed). Both graphs are updated in one pass over the arrays
+	 * each and publish their new weights atomically (see Dijkstra.updateWeights).
+	 * Only the labels of the changed connections are replaced in the lines of the
+	 * map, with exactly the given length and speed
+	 * 
+	 * @param from
+	 *            start points of the connections
+	 * @param to
+	 *            end points of the connections
+	 * @param lengths
+	 *            the new lengths in km
+	 * @param speeds
+	 *            the new speeds in km/h (greater than 0)
+	 * @return the number of connections which were changed
+	 */
+	int updateConnections(String[] from, String[] to, double[] lengths, double[] speeds) {
+		if (lengths.length != from.length || speeds.length != from.length)
+			throw new IllegalArgumentException("from, to, lengths and speeds must have the same length");
+		double[] minutes = new double[from.length];
+		for (int i = 0; i < from.length; i++) {
+			if (!(speeds[i] > 0) || !(lengths[i] >= 0))
+				throw new IllegalArgumentException(
+						"Invalid connection " + from[i] + " -> " + to[i] + ": " + lengths[i] + "," + speeds[i]);
+			// the same conversion as in the DotLoader
+			minutes[i] = lengths[i] / speeds[i] * 60;
+		}
+
+		synchronized (this) {
+			int changed = distances.updateWeights(from, to, lengths);
+			times.updateWeights(from, to, minutes);
+			// a map opened from a snapshot file writes its lines when they are needed
+			MapLines current = lines;
+			if (changed > 0 && current != null)
+				lines = relabel(current, from, to, lengths, speeds);
+			return changed;
+		}
+	}
+
+	/**
+	 * @return the lines with the new labels of all connections on the map
+	 */
+	private MapLines relabel(MapLines current, String[] from, String[] to, double[] lengths, double[] speeds) {
+		int[] tails = new int[from.length];
+		int[] heads = new int[from.length];
+		String[] labels = new String[from.length];
+		int count = 0;
+		for (int i = 0; i < from.length; i++) {
+			// the lines are indexed by the ids of the distance graph
+			int u = distances.findNodeId(from[i]);
+			int v = distances.findNodeId(to[i]);
+			if (u < 0 || v < 0)
+				continue;
+			tails[count] = u;
+			heads[count] = v;
+			labels[count] = number(lengths[i]) + "," + number(speeds[i]);
+			count++;
+		}
+		return current.relabel(tails, heads, labels, count);
+	}
+
+	/**
+	 * @return the number as it is written in a map: without ".0" if it is whole
+	 */
+	private static String number(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15)
+			return Long.toString((long) value);
+		return Double.toString(value);
+	}
+
+	/**
+	 * @return a map without any nodes (used if a file cannot be loaded)
+	 */
+	static RoadMap empty() {
+		return new RoadMap(new MapLines.Builder().build(), new Dijkstra<String>(), new Dijkstra<String>());
+	}
+
+	/**
+	 * Reads the file and fills the nodes and edges of both graphs with the
+	 * corresponding node and edge objects (see {@link DotLoader}). The lines of
+	 * the file are kept. Snapshot files (see {@link SnapshotFile}) are recognized
+	 * by their first bytes and memory-mapped instead
+	 * 
+	 * @param filename
+	 *            name of the file containing the input map
+	 * @return the loaded map
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static RoadMap load(String filename) throws IOException {
+		if (SnapshotFile.isSnapshot(Paths.get(filename)))
+			return SnapshotFile.open(Paths.get(filename));
+		return DotLoader.load(filename, true);
+	}
+
+	/**
+	 * Rough estimate of the heap this map occupies, used by the MapRegistry to stay
+	 * within its budget. For a map from a snapshot file it includes what is built
+	 * on the heap once the map is used, as the estimate is only taken once
+	 * 
+	 * @return the estimated size in bytes
+	 */
+	long estimatedBytes() {
+		long bytes = 0;
+		MapLines indexed = this.lines;
+		if (indexed == null) {
+			// mapped from a snapshot file: the graphs and the names stay in the file, but
+			// drawing a route writes one line per node and edge (about 40 characters and
+			// their index entries, 140 bytes), the bidirectional search reverses both
+			// graphs (offsets per node, target, weight and edge per edge) and the
+			// distance graph has its waiting times (all 0) on the heap
+			long nodes = distances.size();
+			long edges = distances.freeze().edgeCount();
+			return 1024 + nodes * (140 + 2 * 4 + 8) + edges * (140 + 2 * 16);
+		}
+		for (String line : indexed.lines()) {
+			// object header, fields and the characters of the line
+			bytes += 56 + 2L * line.length();
+		}
+		// node objects, registry entries and per-node arrays of both graphs
+		bytes += 2L * distances.size() * 200;
+		// edge objects, edge index entries and the CSR arrays of both graphs
+		bytes += 2L * distances.freeze().edgeCount() * 140;
+		return bytes;
+	}
+}
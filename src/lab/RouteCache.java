@@ -0,0 +1,342 @@
+package lab;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the results of distance and time queries, keyed by (metric,
+ * source, destination). A few pairs of points make up most of the queries, so
+ * the cache keeps the results of those pairs and lets the rare ones go.
+ *
+ * Which results are kept is decided in the TinyLFU way: a small frequency
+ * sketch (count-min, four rows of counters which saturate at 15) counts how
+ * often every pair was asked for. The entries themselves are kept in the order
+ * they were last used; when the cache is full, a new result only takes the place
+ * of the least recently used entry (the victim) if its pair was asked for more
+ * often than the victim's. So a burst of pairs which are asked for only once
+ * cannot push the popular pairs out. All counters of the sketch are halved after
+ * every 10 * capacity queries, so pairs which were popular long ago are
+ * forgotten again.
+ *
+ * Every result is stored together with the generation of the graph it was
+ * computed on (see Dijkstra.getGeneration). A result of an older generation is
+ * never returned, so a changed weight invalidates all results of the graph
+ * without the cache having to be told.
+ *
+ * Many threads query at the same time, so there is no lock for the whole cache:
+ * the entries are split into stripes by the hash of their pair, each with its
+ * own lock and its own share of the capacity (small caches have only one
+ * stripe, so the least recently used entry of the whole cache is the victim).
+ * The sketch is updated without any lock; counters which are increased by two
+ * threads at the same time may lose one of the increments, which only makes the
+ * frequencies a little less exact.
+ *
+ * @author thecr
+ *
+ */
+public final class RouteCache {
+
+	/**
+	 * Returned by get if the result is not in the cache
+	 */
+	public static final int MISS = Integer.MIN_VALUE;
+
+	/*
+	 * The query a result belongs to
+	 */
+	public enum Metric {
+		DISTANCE, TIME
+	};
+
+	/**
+	 * Identifies one query
+	 */
+	private static final class Key {
+		final Metric metric;
+		final String source;
+		final String destination;
+		final int hash;
+
+		Key(Metric metric, String source, String destination) {
+			this.metric = metric;
+			this.source = source;
+			this.destination = destination;
+			this.hash = (metric.hashCode() * 31 + source.hashCode()) * 31 + destination.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key))
+				return false;
+			Key key = (Key) other;
+			return metric == key.metric && source.equals(key.source) && destination.equals(key.destination);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	/**
+	 * A cached result and the generation of the graph it was computed on
+	 */
+	private static final class Entry {
+		final int value;
+		final long generation;
+
+		Entry(int value, long generation) {
+			this.value = value;
+			this.generation = generation;
+		}
+	}
+
+	// at most that many stripes, every stripe has room for at least MIN_STRIPE
+	// entries
+	private static final int MAX_STRIPES = 16;
+	private static final int MIN_STRIPE = 32;
+
+	private final int capacity;
+	// the entries, split by the hash of their key
+	private final Stripe[] stripes;
+	private final FrequencySketch sketch;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	// results which were not admitted because their pair was not asked for often
+	// enough
+	private final LongAdder rejections = new LongAdder();
+
+	/**
+	 * Part of the entries with its own lock, in the order they were used (the
+	 * eldest one is the next victim)
+	 */
+	private static final class Stripe {
+		final int capacity;
+		final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+		Stripe(int capacity) {
+			this.capacity = capacity;
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity
+	 *            the maximal number of results kept (0 switches the cache off)
+	 */
+	public RouteCache(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("capacity has to be at least 0: " + capacity);
+		this.capacity = capacity;
+		int count = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, capacity / MIN_STRIPE)));
+		this.stripes = new Stripe[count];
+		for (int i = 0; i < count; i++) {
+			// the rest of the division goes to the first stripes
+			stripes[i] = new Stripe(capacity / count + (i < capacity % count ? 1 : 0));
+		}
+		this.sketch = new FrequencySketch(capacity);
+	}
+
+	private Stripe stripeOf(Key key) {
+		int h = key.hash;
+		return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+	}
+
+	/**
+	 * Looks a result up and counts the query in the frequency sketch
+	 *
+	 * @param metric
+	 *            distance or time
+	 * @param source
+	 *            name of the source
+	 * @param destination
+	 *            name of the destination
+	 * @param generation
+	 *            the current generation of the graph the query runs on
+	 * @return the cached result or MISS
+	 */
+	public int get(Metric metric, String source, String destination, long generation) {
+		if (capacity == 0) {
+			misses.increment();
+			return MISS;
+		}
+		Key key = new Key(metric, source, destination);
+		sketch.increment(key.hash);
+		Stripe stripe = stripeOf(key);
+		synchronized (stripe) {
+			Entry entry = stripe.entries.get(key);
+			if (entry != null && entry.generation == generation) {
+				hits.increment();
+				return entry.value;
+			}
+			// a result of an older graph is of no use any more
+			if (entry != null)
+				stripe.entries.remove(key);
+		}
+		misses.increment();
+		return MISS;
+	}
+
+	/**
+	 * Offers a new result to the cache. If its stripe is full the result is only
+	 * kept if its query was asked for more often than the least recently used one
+	 * of the stripe (or if that one belongs to an older generation of the graph)
+	 *
+	 * @param metric
+	 *            distance or time
+	 * @param source
+	 *            name of the source
+	 * @param destination
+	 *            name of the destination
+	 * @param generation
+	 *            the generation of the graph the result was computed on
+	 * @param value
+	 *            the result
+	 */
+	public void put(Metric metric, String source, String destination, long generation, int value) {
+		if (capacity == 0)
+			return;
+		Key key = new Key(metric, source, destination);
+		Stripe stripe = stripeOf(key);
+		synchronized (stripe) {
+			LinkedHashMap<Key, Entry> entries = stripe.entries;
+			if (entries.size() >= stripe.capacity && !entries.containsKey(key)) {
+				if (stripe.capacity == 0)
+					return;
+				Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+				Map.Entry<Key, Entry> victim = eldest.next();
+				boolean outdated = victim.getKey().metric == metric && victim.getValue().generation != generation;
+				if (!outdated && sketch.frequency(key.hash) <= sketch.frequency(victim.getKey().hash)) {
+					rejections.increment();
+					return;
+				}
+				eldest.remove();
+			}
+			entries.put(key, new Entry(value, generation));
+		}
+	}
+
+	/**
+	 * Removes all results (the frequencies and counters are kept)
+	 */
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				stripe.entries.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return the maximal number of results kept
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the number of results kept at the moment
+	 */
+	public int getSize() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.entries.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the number of queries answered from the cache
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of queries which had to be searched
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of results which were not admitted
+	 */
+	public long getRejections() {
+		return rejections.sum();
+	}
+
+	/**
+	 * Count-min sketch of how often the queries were asked for. Every query
+	 * increases one counter in each of the four rows (picked by differently mixed
+	 * hashes), its frequency is the smallest of them, so collisions can only make a
+	 * frequency too big, never too small (apart from increments lost to other
+	 * threads, as the counters are not locked). The number of increments is
+	 * counted exactly, so only one thread ages the sketch per sample
+	 */
+	private static final class FrequencySketch {
+		private static final int DEPTH = 4;
+		private static final int MAXIMUM = 15;
+		private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+
+		private final byte[][] counters;
+		private final int mask;
+		// number of increments after which all counters are halved
+		private final int sampleSize;
+		// increments since the last aging (sampleSize / 2 right after it)
+		private final AtomicInteger additions = new AtomicInteger();
+
+		FrequencySketch(int capacity) {
+			int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+			counters = new byte[DEPTH][width];
+			mask = width - 1;
+			sampleSize = Math.max(16, 10 * capacity);
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		void increment(int hash) {
+			for (int row = 0; row < DEPTH; row++) {
+				int i = index(hash, row);
+				// read once, so a racing thread cannot push it over the maximum
+				int count = counters[row][i];
+				if (count < MAXIMUM)
+					counters[row][i] = (byte) (count + 1);
+			}
+			// only the thread which resets the count ages the sketch, the others see
+			// the reset count and go on (or try again with the next increment)
+			int count = additions.incrementAndGet();
+			if (count >= sampleSize && additions.compareAndSet(count, sampleSize / 2))
+				age();
+		}
+
+		int frequency(int hash) {
+			int frequency = MAXIMUM;
+			for (int row = 0; row < DEPTH; row++) {
+				frequency = Math.min(frequency, counters[row][index(hash, row)]);
+			}
+			return frequency;
+		}
+
+		/**
+		 * Halves all counters, so old popularity fades away
+		 */
+		private void age() {
+			for (byte[] row : counters) {
+				for (int i = 0; i < row.length; i++) {
+					row[i] >>= 1;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package lab;
+
+/**
+ * Result of one route query: the status code, the length of the route (either
+ * in km or in minutes) as a primitive and the ids of the nodes on the route.
+ * The status is FOUND or one of the return codes of {@link Navigation}
+ * (SOURCE_NOT_FOUND, DESTINATION_NOT_FOUND, SOURCE_DESTINATION_NOT_FOUND or
+ * NO_PATH).
+ * 
+ * @author thecr
+ *
+ */
+public final class RouteResult {
+
+	/*
+	 * Status of a result for which a route was found
+	 */
+	public static final int FOUND = 0;
+
+	/*
+	 * Sums of doubles can end up a tiny bit above a whole number (e.g.
+	 * 13.000000000000002), which must not be rounded up to the next minute
+	 */
+	private static final double ROUNDING_TOLERANCE = 1e-9;
+
+	private static final int[] NO_NODES = new int[0];
+
+	private final int status;
+	private final double value;
+	private final int[] path;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param status
+	 *            FOUND or one of the return codes of Navigation
+	 * @param value
+	 *            length of the route (km or minutes)
+	 * @param path
+	 *            ids of the nodes on the route, starting with the source
+	 */
+	RouteResult(int status, double value, int[] path) {
+		this.status = status;
+		this.value = value;
+		this.path = path;
+	}
+
+	/**
+	 * @param status
+	 *            one of the return codes of Navigation
+	 * @return a result without a route
+	 */
+	static RouteResult failed(int status) {
+		return new RouteResult(status, Double.NaN, NO_NODES);
+	}
+
+	/**
+	 * @return FOUND or one of the return codes of Navigation
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return true if a route was found
+	 */
+	public boolean isFound() {
+		return status == FOUND;
+	}
+
+	/**
+	 * @return the exact length of the route (km or minutes), NaN if no route was
+	 *         found
+	 */
+	public double getValue() {
+		return value;
+	}
+
+	/**
+	 * @return the length of the route rounded upwards or, if no route was found,
+	 *         the status code
+	 */
+	public int getRoundedValue() {
+		if (!isFound())
+			return status;
+		return round(value);
+	}
+
+	/**
+	 * @param value
+	 *            length or time of a route
+	 * @return the value rounded upwards (small floating point errors are not
+	 *         rounded up)
+	 */
+	static int round(double value) {
+		return (int) Math.ceil(value - ROUNDING_TOLERANCE);
+	}
+
+	/**
+	 * @return the number of nodes on the route (including source and destination)
+	 */
+	public int getPathLength() {
+		return path.length;
+	}
+
+	/**
+	 * @param position
+	 *            position on the route (0 is the source)
+	 * @return the id of the node at the given position of the route
+	 */
+	public int getNode(int position) {
+		return path[position];
+	}
+
+	/**
+	 * @return a copy of the ids of the nodes on the route, starting with the source
+	 */
+	public int[] getPath() {
+		return path.clone();
+	}
+}
@@ -0,0 +1,140 @@
+package lab;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a map with marked edges (a route) in the Dot format straight to a
+ * Writer, an OutputStream or a channel, line by line, without building the
+ * annotated map as a list first. The lines of the loaded map are only read.
+ *
+ * In the FULL mode all lines of the map are written, the marked edges in bold.
+ * In the DIFF mode only the lines opening and closing the graph (Digraph { and
+ * }, wherever they are in the map) and the marked edges in bold are written, in
+ * the order of the map, for readers which have the map already.
+ *
+ * Lines are ended with '\n', streams and channels get UTF-8. The writer is
+ * flushed but not closed at the end.
+ *
+ * @author thecr
+ *
+ */
+public final class RouteWriter {
+
+	/*
+	 * FULL writes the whole map, DIFF only header, marked edges and footer
+	 */
+	public enum Mode {
+		FULL, DIFF
+	};
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final MapLines lines;
+	// numbers of the lines to mark, sorted
+	private final int[] marked;
+	private final Mode mode;
+
+	/**
+	 * Constructor
+	 *
+	 * @param lines
+	 *            the lines of the map
+	 * @param marked
+	 *            numbers of the lines to mark bold, sorted
+	 * @param mode
+	 *            what is written
+	 */
+	RouteWriter(MapLines lines, int[] marked, Mode mode) {
+		this.lines = lines;
+		this.marked = marked;
+		this.mode = mode;
+	}
+
+	/**
+	 * @return the number of lines which are marked bold (0 if there is no route)
+	 */
+	public int getMarkedCount() {
+		return marked.length;
+	}
+
+	/**
+	 * Writes the map
+	 *
+	 * @param out
+	 *            where the lines go
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(Writer out) throws IOException {
+		List<String> all = lines.lines();
+		if (mode == Mode.DIFF) {
+			// frame and marked lines are both sorted, merged in the order of the map
+			int[] frame = lines.frameLines();
+			int nextFrame = 0;
+			int next = 0;
+			while (nextFrame < frame.length || next < marked.length) {
+				if (next == marked.length || (nextFrame < frame.length && frame[nextFrame] < marked[next])) {
+					line(out, all.get(frame[nextFrame++]));
+				} else {
+					int line = marked[next];
+					line(out, MapLines.bold(all.get(line)));
+					while (next < marked.length && marked[next] == line) {
+						next++;
+					}
+				}
+			}
+		} else {
+			// the marked lines are sorted, so one pointer walks along with the map
+			int next = 0;
+			for (int i = 0; i < all.size(); i++) {
+				if (next < marked.length && marked[next] == i) {
+					line(out, MapLines.bold(all.get(i)));
+					while (next < marked.length && marked[next] == i) {
+						next++;
+					}
+				} else {
+					line(out, all.get(i));
+				}
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes the map in UTF-8
+	 *
+	 * @param out
+	 *            where the bytes go
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		writeTo(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE));
+	}
+
+	/**
+	 * Writes the map in UTF-8
+	 *
+	 * @param channel
+	 *            where the bytes go
+	 * @throws IOException
+	 *             if writing fails
+	 */
+	public void writeTo(WritableByteChannel channel) throws IOException {
+		writeTo(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE),
+				BUFFER_SIZE));
+	}
+
+	private static void line(Writer out, String line) throws IOException {
+		out.write(line);
+		out.write('\n');
+	}
+}
@@ -0,0 +1,141 @@
+package lab;
+
+import java.util.Arrays;
+
+/**
+ * All the per-query state of a search: the tentative distance and the
+ * predecessor (father) of every node plus the frontier. The values are only
+ * valid if the stamp of the node equals the epoch of the current query, so
+ * starting a new query just increments the epoch instead of resetting every
+ * node (which was initializeSingleSource). Nodes which were not touched by the
+ * current query read as unreached.
+ * 
+ * A workspace is reused for query after query (one per thread), so a search
+ * does not allocate anything unless the graph has grown.
+ * 
+ * @author thecr
+ *
+ */
+final class SearchWorkspace {
+
+	/*
+	 * Distance of every node not reached by the current query. Same value the
+	 * nodes used to be initialized with
+	 */
+	static final double UNREACHED = Double.MAX_VALUE;
+
+	private double[] distance = new double[0];
+	private int[] predecessor = new int[0];
+	private int[] stamp = new int[0];
+	private int epoch = 0;
+
+	private Frontier frontier;
+	private Dijkstra.FrontierType frontierType;
+	private int arity;
+
+	// source of the current query, -1 if the query had no valid source
+	private int source = -1;
+
+	/**
+	 * Starts a new query. Costs O(1) unless the graph has grown since the last
+	 * query or the epoch counter wraps around
+	 * 
+	 * @param capacity
+	 *            number of nodes of the graph the query runs on
+	 * @param source
+	 *            id of the source node (or -1 if there is none)
+	 */
+	void begin(int capacity, int source) {
+		if (stamp.length < capacity) {
+			int grown = Math.max(capacity, stamp.length + (stamp.length >> 1));
+			distance = new double[grown];
+			predecessor = new int[grown];
+			stamp = new int[grown];
+			epoch = 0;
+			frontier = null;
+		}
+		if (epoch == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			epoch = 0;
+		}
+		epoch++;
+		this.source = source;
+		if (frontier != null)
+			frontier.clear();
+	}
+
+	/**
+	 * Returns the frontier for the current query, it is only created again if the
+	 * requested type differs from the last query
+	 * 
+	 * @param type
+	 *            the kind of queue
+	 * @param arity
+	 *            number of children per heap node (only used by the d-ary heap)
+	 * @return an empty frontier
+	 */
+	Frontier frontier(Dijkstra.FrontierType type, int arity) {
+		if (frontier == null || frontierType != type || (type == Dijkstra.FrontierType.D_ARY_HEAP && this.arity != arity)) {
+			if (type == Dijkstra.FrontierType.PRIORITY_QUEUE)
+				frontier = new PriorityQueueFrontier(stamp.length);
+			else
+				frontier = new IndexedHeap(stamp.length, arity);
+			frontierType = type;
+			this.arity = arity;
+		}
+		return frontier;
+	}
+
+	/**
+	 * @return id of the source of the current query, -1 if there is none
+	 */
+	int source() {
+		return source;
+	}
+
+	/**
+	 * Unlike distance this also works for nodes the workspace has never seen (for
+	 * example nodes added after the last query)
+	 * 
+	 * @param node
+	 *            id of the node
+	 * @return true if the current query has reached the node
+	 */
+	boolean reached(int node) {
+		return node >= 0 && node < stamp.length && stamp[node] == epoch;
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @return the tentative distance of the node or UNREACHED
+	 */
+	double distance(int node) {
+		return stamp[node] == epoch ? distance[node] : UNREACHED;
+	}
+
+	/**
+	 * @param node
+	 *            id of the node
+	 * @return the id of the father of the node or -1 if it has none
+	 */
+	int predecessor(int node) {
+		return stamp[node] == epoch ? predecessor[node] : -1;
+	}
+
+	/**
+	 * Stores a better distance for the node (the relax step)
+	 * 
+	 * @param node
+	 *            id of the node
+	 * @param newDistance
+	 *            the new tentative distance
+	 * @param father
+	 *            id of the node we came from (or -1 for the source)
+	 */
+	void update(int node, double newDistance, int father) {
+		stamp[node] = epoch;
+		distance[node] = newDistance;
+		predecessor[node] = father;
+	}
+}
@@ -0,0 +1,606 @@
+package lab;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of a loaded map (node names, adjacency, distance and time of
+ * every edge, waiting time of every node and, if they were prepared, the
+ * landmark tables of the ALT search and the all-pairs tables). A snapshot file is opened by
+ * memory-mapping it: the graphs are searched directly on the mapped file, so
+ * there is nothing to parse or copy at startup.
+ * 
+ * Layout (all numbers little-endian):
+ * 
+ * <pre>
+ * header   magic "DIJKSNAP", int version, int section count, int node count,
+ *          int edge count, long data checksum, int header checksum, int 0
+ * sections section count times (int type, int 0, long offset, long length)
+ * data     the sections, every one starting at a multiple of 8
+ * </pre>
+ * 
+ * The header checksum is a CRC32 over the header (without the checksum itself)
+ * and the section table and is always checked. The data checksum is a CRC32
+ * over the contents of all sections in the order of the section table; checking
+ * it reads the whole file, so it is only done for files up to VERIFY_LIMIT
+ * bytes. The structure of the sections (sizes, edge offsets, edge targets, node
+ * names and their hash table) is always checked in one pass, so a damaged file
+ * is rejected instead of giving wrong routes or hanging a search.
+ * 
+ * @author thecr
+ *
+ */
+final class SnapshotFile {
+
+	static final byte[] MAGIC = "DIJKSNAP".getBytes(StandardCharsets.US_ASCII);
+	static final int VERSION = 1;
+
+	// files up to this size get their data checksum checked when they are opened
+	static final long VERIFY_LIMIT = 256L << 20;
+
+	private static final int HEADER_SIZE = 40;
+	private static final int SECTION_ENTRY_SIZE = 24;
+
+	/*
+	 * Section types
+	 */
+	static final int NAME_OFFSETS = 1;
+	static final int NAME_BYTES = 2;
+	static final int NAME_TABLE = 3;
+	static final int EDGE_OFFSETS = 4;
+	static final int EDGE_TARGETS = 5;
+	static final int DISTANCE_WEIGHTS = 6;
+	static final int TIME_WEIGHTS = 7;
+	static final int WAITING_TIMES = 8;
+	// landmark tables of the ALT search (optional)
+	static final int DISTANCE_LANDMARKS = 9;
+	static final int DISTANCE_LANDMARKS_FROM = 10;
+	static final int DISTANCE_LANDMARKS_TO = 11;
+	static final int TIME_LANDMARKS = 12;
+	static final int TIME_LANDMARKS_FROM = 13;
+	static final int TIME_LANDMARKS_TO = 14;
+	// all-pairs tables (optional)
+	static final int DISTANCE_ORACLE = 15;
+	static final int DISTANCE_ORACLE_PREDECESSORS = 16;
+	static final int TIME_ORACLE = 17;
+	static final int TIME_ORACLE_PREDECESSORS = 18;
+
+	private SnapshotFile() {
+	}
+
+	/**
+	 * @param file
+	 *            the file to check
+	 * @return true if the file starts like a snapshot file
+	 * @throws IOException
+	 *             if the file cannot be read
+	 */
+	static boolean isSnapshot(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer start = ByteBuffer.allocate(MAGIC.length);
+			while (start.hasRemaining() && channel.read(start) >= 0) {
+				// reads until the magic is complete or the file ends
+			}
+			return !start.hasRemaining() && Arrays.equals(start.array(), MAGIC);
+		}
+	}
+
+	/*
+	 * Writing
+	 */
+
+	/**
+	 * Writes the map as snapshot file. Both graphs of the map must have the same
+	 * nodes and edges (which is always the case for maps read from a Dot file)
+	 * 
+	 * @param map
+	 *            the loaded map
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	static void write(RoadMap map, Path file) throws IOException {
+		CompactGraph distances = map.distances.freeze();
+		CompactGraph times = map.times.freeze();
+		if (!distances.sameTopology(times))
+			throw new IllegalStateException("The distance and the time graph differ in their edges");
+
+		int n = distances.size();
+
+		// names: UTF-8 bytes one after another and the offset of every name
+		int[] nameOffsets = new int[n + 1];
+		List<byte[]> names = new ArrayList<byte[]>(n);
+		long nameLength = 0;
+		for (int id = 0; id < n; id++) {
+			byte[] name = map.distances.getName(id).getBytes(StandardCharsets.UTF_8);
+			names.add(name);
+			nameLength += name.length;
+			if (nameLength > Integer.MAX_VALUE)
+				throw new IllegalStateException("The node names do not fit into 2 GB");
+			nameOffsets[id + 1] = (int) nameLength;
+		}
+		ByteBuffer nameBytes = ByteBuffer.allocate((int) nameLength);
+		for (byte[] name : names) {
+			nameBytes.put(name);
+		}
+		nameBytes.flip();
+
+		// hash table (open addressing) from the hash of the name bytes to id + 1
+		int[] table = new int[tableSize(n)];
+		for (int id = 0; id < n; id++) {
+			int slot = Arrays.hashCode(names.get(id)) & (table.length - 1);
+			while (table[slot] != 0) {
+				slot = (slot + 1) & (table.length - 1);
+			}
+			table[slot] = id + 1;
+		}
+
+		List<Integer> types = new ArrayList<Integer>();
+		List<ByteBuffer> sections = new ArrayList<ByteBuffer>();
+		add(types, sections, NAME_OFFSETS, ints(IntBuffer.wrap(nameOffsets)));
+		add(types, sections, NAME_BYTES, nameBytes);
+		add(types, sections, NAME_TABLE, ints(IntBuffer.wrap(table)));
+		add(types, sections, EDGE_OFFSETS, ints(distances.offsets()));
+		add(types, sections, EDGE_TARGETS, ints(distances.targets()));
+		add(types, sections, DISTANCE_WEIGHTS, doubles(distances.weights()));
+		add(types, sections, TIME_WEIGHTS, doubles(times.weights()));
+		add(types, sections, WAITING_TIMES, doubles(times.waitingTimes()));
+
+		// the landmark tables (if there are any for the current graphs)
+		Landmarks lengthLandmarks = map.distances.lengthLandmarks();
+		if (lengthLandmarks != null) {
+			add(types, sections, DISTANCE_LANDMARKS, ints(lengthLandmarks.landmarks()));
+			add(types, sections, DISTANCE_LANDMARKS_FROM, doubles(lengthLandmarks.from()));
+			add(types, sections, DISTANCE_LANDMARKS_TO, doubles(lengthLandmarks.to()));
+		}
+		Landmarks timeLandmarks = map.times.timeLandmarks();
+		if (timeLandmarks != null) {
+			add(types, sections, TIME_LANDMARKS, ints(timeLandmarks.landmarks()));
+			add(types, sections, TIME_LANDMARKS_FROM, doubles(timeLandmarks.from()));
+			add(types, sections, TIME_LANDMARKS_TO, doubles(timeLandmarks.to()));
+		}
+
+		// the all-pairs tables (if there are any for the current graphs)
+		DistanceOracle lengthOracle = map.distances.lengthOracle();
+		if (lengthOracle != null) {
+			add(types, sections, DISTANCE_ORACLE, doubles(lengthOracle.distances()));
+			add(types, sections, DISTANCE_ORACLE_PREDECESSORS, ints(lengthOracle.predecessors()));
+		}
+		DistanceOracle timeOracle = map.times.timeOracle();
+		if (timeOracle != null) {
+			add(types, sections, TIME_ORACLE, doubles(timeOracle.distances()));
+			add(types, sections, TIME_ORACLE_PREDECESSORS, ints(timeOracle.predecessors()));
+		}
+
+		write(file, n, distances.edgeCount(), types, sections);
+	}
+
+	/**
+	 * Writes header, section table and sections
+	 */
+	static void write(Path file, int nodeCount, int edgeCount, List<Integer> types, List<ByteBuffer> sections)
+			throws IOException {
+		int count = sections.size();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + count * SECTION_ENTRY_SIZE)
+				.order(ByteOrder.LITTLE_ENDIAN);
+
+		CRC32 data = new CRC32();
+		long offset = align(header.capacity());
+		header.position(HEADER_SIZE);
+		for (int i = 0; i < count; i++) {
+			ByteBuffer section = sections.get(i);
+			header.putInt(types.get(i)).putInt(0).putLong(offset).putLong(section.remaining());
+			data.update(section.duplicate());
+			offset = align(offset + section.remaining());
+		}
+
+		header.position(0);
+		header.put(MAGIC).putInt(VERSION).putInt(count).putInt(nodeCount).putInt(edgeCount)
+				.putLong(data.getValue());
+		header.putInt(36, 0);
+		header.putInt(32, headerChecksum(header));
+		header.position(0);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, header, 0);
+			long position = align(header.capacity());
+			for (ByteBuffer section : sections) {
+				int length = section.remaining();
+				writeFully(channel, section.duplicate(), position);
+				position = align(position + length);
+			}
+			channel.force(false);
+		}
+	}
+
+	private static void add(List<Integer> types, List<ByteBuffer> sections, int type, ByteBuffer section) {
+		types.add(type);
+		sections.add(section);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	static ByteBuffer ints(IntBuffer values) {
+		ByteBuffer bytes = ByteBuffer.allocate(values.limit() * 4).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.asIntBuffer().put(values);
+		return bytes;
+	}
+
+	static ByteBuffer doubles(DoubleBuffer values) {
+		ByteBuffer bytes = ByteBuffer.allocate(values.limit() * 8).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.asDoubleBuffer().put(values);
+		return bytes;
+	}
+
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+
+	/**
+	 * @return a power of two which is at least twice the number of nodes
+	 */
+	private static int tableSize(int n) {
+		int size = 2;
+		while (size < 2L * n) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+	/**
+	 * CRC32 over the header (with 0 in place of the checksum) and the section
+	 * table
+	 */
+	private static int headerChecksum(ByteBuffer header) {
+		ByteBuffer copy = header.duplicate();
+		copy.clear();
+		byte[] bytes = new byte[copy.capacity()];
+		copy.get(bytes);
+		Arrays.fill(bytes, 32, 36, (byte) 0);
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return (int) crc.getValue();
+	}
+
+	/*
+	 * Reading
+	 */
+
+	/**
+	 * An opened snapshot file: the section table together with the mapped
+	 * sections
+	 */
+	static final class Sections {
+		final int nodeCount;
+		final int edgeCount;
+		private final int[] types;
+		private final ByteBuffer[] buffers;
+
+		Sections(int nodeCount, int edgeCount, int[] types, ByteBuffer[] buffers) {
+			this.nodeCount = nodeCount;
+			this.edgeCount = edgeCount;
+			this.types = types;
+			this.buffers = buffers;
+		}
+
+		/**
+		 * @param type
+		 *            the section type
+		 * @return the mapped section or null if the file has no such section
+		 */
+		ByteBuffer get(int type) {
+			for (int i = 0; i < types.length; i++) {
+				if (types[i] == type)
+					return buffers[i].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+			}
+			return null;
+		}
+
+		ByteBuffer require(int type) throws IOException {
+			ByteBuffer section = get(type);
+			if (section == null)
+				throw new IOException("Snapshot file without section " + type);
+			return section;
+		}
+	}
+
+	/**
+	 * Maps the sections of a snapshot file (every section gets its own mapping,
+	 * so the whole file may be bigger than 2 GB)
+	 * 
+	 * @param file
+	 *            the snapshot file
+	 * @param verify
+	 *            true if the checksum of the data should be checked as well
+	 * @return the mapped sections
+	 * @throws IOException
+	 *             if the file cannot be read or is no valid snapshot
+	 */
+	static Sections map(Path file, boolean verify) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE)
+				throw new IOException("Not a snapshot file: " + file);
+
+			ByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			byte[] magic = new byte[MAGIC.length];
+			start.get(magic);
+			if (!Arrays.equals(magic, MAGIC))
+				throw new IOException("Not a snapshot file: " + file);
+			int version = start.getInt(8);
+			if (version != VERSION)
+				throw new IOException("Unsupported snapshot version " + version + ": " + file);
+			int count = start.getInt(12);
+			if (count < 0 || HEADER_SIZE + (long) count * SECTION_ENTRY_SIZE > size)
+				throw new IOException("Corrupt snapshot header: " + file);
+
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + count * SECTION_ENTRY_SIZE)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (headerChecksum(header) != header.getInt(32))
+				throw new IOException("Corrupt snapshot header: " + file);
+
+			int[] types = new int[count];
+			ByteBuffer[] buffers = new ByteBuffer[count];
+			CRC32 data = new CRC32();
+			// the sections follow the section table one after the other
+			long end = align(HEADER_SIZE + (long) count * SECTION_ENTRY_SIZE);
+			for (int i = 0; i < count; i++) {
+				int entry = HEADER_SIZE + i * SECTION_ENTRY_SIZE;
+				long offset = header.getLong(entry + 8);
+				long length = header.getLong(entry + 16);
+				if (offset < end || (offset & 7) != 0 || length < 0 || length > Integer.MAX_VALUE
+						|| offset + length > size)
+					throw new IOException("Corrupt snapshot section table: " + file);
+				types[i] = header.getInt(entry);
+				buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+				end = offset + length;
+				if (verify)
+					data.update(buffers[i].duplicate());
+			}
+			if (verify && data.getValue() != header.getLong(24))
+				throw new IOException("Corrupt snapshot data (checksum mismatch): " + file);
+
+			return new Sections(header.getInt(16), header.getInt(20), types, buffers);
+		}
+	}
+
+	/**
+	 * Opens a snapshot file written by write(RoadMap, Path), the data checksum is
+	 * checked if the file is not bigger than VERIFY_LIMIT
+	 * 
+	 * @param file
+	 *            the snapshot file
+	 * @return the map, its graphs are searched directly on the mapped file
+	 * @throws IOException
+	 *             if the file cannot be read or is no valid snapshot
+	 */
+	static RoadMap open(Path file) throws IOException {
+		return open(file, Files.size(file) <= VERIFY_LIMIT);
+	}
+
+	/**
+	 * Opens a snapshot file written by write(RoadMap, Path)
+	 * 
+	 * @param file
+	 *            the snapshot file
+	 * @param verify
+	 *            true if the checksum of the data should be checked as well
+	 *            (reads the whole file)
+	 * @return the map, its graphs are searched directly on the mapped file
+	 * @throws IOException
+	 *             if the file cannot be read or is no valid snapshot
+	 */
+	static RoadMap open(Path file, boolean verify) throws IOException {
+		Sections sections = map(file, verify);
+
+		int n = sections.nodeCount;
+		int m = sections.edgeCount;
+		IntBuffer offsets = sections.require(EDGE_OFFSETS).asIntBuffer();
+		IntBuffer targets = sections.require(EDGE_TARGETS).asIntBuffer();
+		DoubleBuffer distanceWeights = sections.require(DISTANCE_WEIGHTS).asDoubleBuffer();
+		DoubleBuffer timeWeights = sections.require(TIME_WEIGHTS).asDoubleBuffer();
+		DoubleBuffer waitingTimes = sections.require(WAITING_TIMES).asDoubleBuffer();
+		if (n < 0 || m < 0 || offsets.limit() != n + 1 || targets.limit() != m || distanceWeights.limit() != m
+				|| timeWeights.limit() != m || waitingTimes.limit() != n)
+			throw new IOException("Corrupt snapshot sections: " + file);
+		checkEdges(offsets, targets, n, m, file);
+
+		IntBuffer nameOffsets = sections.require(NAME_OFFSETS).asIntBuffer();
+		ByteBuffer nameBytes = sections.require(NAME_BYTES);
+		IntBuffer table = sections.require(NAME_TABLE).asIntBuffer();
+		checkNames(nameOffsets, nameBytes, table, n, file);
+
+		DoubleBuffer noWaiting = DoubleBuffer.wrap(new double[n]);
+		CompactGraph distances = new CompactGraph(offsets, targets, distanceWeights, noWaiting);
+		CompactGraph times = new CompactGraph(offsets, targets, timeWeights, waitingTimes);
+		MappedNames names = new MappedNames(nameOffsets, nameBytes, table);
+
+		Dijkstra<String> distanceGraph = new Dijkstra<String>(distances, names);
+		distanceGraph.setLandmarks(
+				landmarks(sections, distances, DISTANCE_LANDMARKS, DISTANCE_LANDMARKS_FROM, DISTANCE_LANDMARKS_TO, file),
+				null);
+		distanceGraph.setOracles(oracle(sections, distances, DISTANCE_ORACLE, DISTANCE_ORACLE_PREDECESSORS, file),
+				null);
+		Dijkstra<String> timeGraph = new Dijkstra<String>(times, names);
+		timeGraph.setLandmarks(null,
+				landmarks(sections, times, TIME_LANDMARKS, TIME_LANDMARKS_FROM, TIME_LANDMARKS_TO, file));
+		timeGraph.setOracles(null, oracle(sections, times, TIME_ORACLE, TIME_ORACLE_PREDECESSORS, file));
+
+		return new RoadMap(distanceGraph, timeGraph);
+	}
+
+	/**
+	 * The edge offsets have to start at 0, never decrease and end at the number of
+	 * edges, all targets have to be nodes
+	 */
+	private static void checkEdges(IntBuffer offsets, IntBuffer targets, int n, int m, Path file)
+			throws IOException {
+		if (offsets.get(0) != 0 || offsets.get(n) != m)
+			throw new IOException("Corrupt snapshot edges: " + file);
+		for (int v = 0; v < n; v++) {
+			if (offsets.get(v) > offsets.get(v + 1))
+				throw new IOException("Corrupt snapshot edges: " + file);
+		}
+		for (int e = 0; e < m; e++) {
+			int target = targets.get(e);
+			if (target < 0 || target >= n)
+				throw new IOException("Corrupt snapshot edges: " + file);
+		}
+	}
+
+	/**
+	 * The name offsets have to stay within the name bytes, the hash table has to
+	 * be a power of two in size, hold every id exactly once and have at least one
+	 * free slot (otherwise the lookup of an unknown name would never end)
+	 */
+	private static void checkNames(IntBuffer offsets, ByteBuffer bytes, IntBuffer table, int n, Path file)
+			throws IOException {
+		if (offsets.limit() != n + 1 || offsets.get(0) != 0 || offsets.get(n) != bytes.limit())
+			throw new IOException("Corrupt snapshot names: " + file);
+		for (int id = 0; id < n; id++) {
+			if (offsets.get(id) > offsets.get(id + 1))
+				throw new IOException("Corrupt snapshot names: " + file);
+		}
+		int size = table.limit();
+		if (size < 2 || Integer.bitCount(size) != 1)
+			throw new IOException("Corrupt snapshot name table: " + file);
+		boolean[] seen = new boolean[n];
+		int used = 0;
+		for (int slot = 0; slot < size; slot++) {
+			int id = table.get(slot) - 1;
+			if (id < 0) {
+				if (id != -1)
+					throw new IOException("Corrupt snapshot name table: " + file);
+				continue;
+			}
+			if (id >= n || seen[id])
+				throw new IOException("Corrupt snapshot name table: " + file);
+			seen[id] = true;
+			used++;
+		}
+		if (used != n || used == size)
+			throw new IOException("Corrupt snapshot name table: " + file);
+	}
+
+	/**
+	 * Reads an all-pairs table (directly on the mapped file)
+	 * 
+	 * @return the table or null if the file has none for this graph
+	 */
+	private static DistanceOracle oracle(Sections sections, CompactGraph graph, int distancesType,
+			int predecessorsType, Path file) throws IOException {
+		ByteBuffer distances = sections.get(distancesType);
+		if (distances == null)
+			return null;
+		DoubleBuffer values = distances.asDoubleBuffer();
+		IntBuffer predecessors = sections.require(predecessorsType).asIntBuffer();
+		long expected = (long) graph.size() * graph.size();
+		if (values.limit() != expected || predecessors.limit() != expected)
+			throw new IOException("Corrupt snapshot all-pairs table: " + file);
+		for (int i = 0; i < predecessors.limit(); i++) {
+			int father = predecessors.get(i);
+			if (father < -1 || father >= graph.size())
+				throw new IOException("Corrupt snapshot all-pairs table: " + file);
+		}
+		return new DistanceOracle(graph, values, predecessors);
+	}
+
+	/**
+	 * Reads landmark tables (directly on the mapped file)
+	 * 
+	 * @return the landmarks or null if the file has none for this graph
+	 */
+	private static Landmarks landmarks(Sections sections, CompactGraph graph, int landmarksType, int fromType,
+			int toType, Path file) throws IOException {
+		ByteBuffer landmarks = sections.get(landmarksType);
+		if (landmarks == null)
+			return null;
+		IntBuffer ids = landmarks.asIntBuffer();
+		DoubleBuffer from = sections.require(fromType).asDoubleBuffer();
+		DoubleBuffer to = sections.require(toType).asDoubleBuffer();
+		long expected = (long) ids.limit() * graph.size();
+		if (from.limit() != expected || to.limit() != expected)
+			throw new IOException("Corrupt snapshot landmark tables: " + file);
+		for (int k = 0; k < ids.limit(); k++) {
+			if (ids.get(k) < 0 || ids.get(k) >= graph.size())
+				throw new IOException("Corrupt snapshot landmark tables: " + file);
+		}
+		return new Landmarks(graph, ids, from, to);
+	}
+
+	/**
+	 * Node names read directly from the mapped file
+	 */
+	static final class MappedNames implements NodeNames<String> {
+		private final IntBuffer offsets;
+		private final ByteBuffer bytes;
+		private final IntBuffer table;
+
+		MappedNames(IntBuffer offsets, ByteBuffer bytes, IntBuffer table) {
+			this.offsets = offsets;
+			this.bytes = bytes;
+			this.table = table;
+		}
+
+		@Override
+		public int size() {
+			return offsets.limit() - 1;
+		}
+
+		@Override
+		public int idOf(String name) {
+			byte[] wanted = name.getBytes(StandardCharsets.UTF_8);
+			int mask = table.limit() - 1;
+			int slot = Arrays.hashCode(wanted) & mask;
+			// the table has a free slot (checked when opening), the bound is only a guard
+			for (int probes = 0; probes < table.limit(); probes++, slot = (slot + 1) & mask) {
+				int id = table.get(slot) - 1;
+				if (id < 0)
+					return -1;
+				if (matches(id, wanted))
+					return id;
+			}
+			return -1;
+		}
+
+		private boolean matches(int id, byte[] wanted) {
+			int start = offsets.get(id);
+			if (offsets.get(id + 1) - start != wanted.length)
+				return false;
+			for (int i = 0; i < wanted.length; i++) {
+				if (bytes.get(start + i) != wanted[i])
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		public String nameOf(int id) {
+			int start = offsets.get(id);
+			byte[] name = new byte[offsets.get(id + 1) - start];
+			for (int i = 0; i < name.length; i++) {
+				name[i] = bytes.get(start + i);
+			}
+			return new String(name, StandardCharsets.UTF_8);
+		}
+	}
+}